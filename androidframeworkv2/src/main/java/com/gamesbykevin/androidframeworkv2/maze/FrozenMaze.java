@@ -0,0 +1,248 @@
+package com.gamesbykevin.androidframeworkv2.maze;
+
+import com.gamesbykevin.androidframeworkv2.maze.Room.Wall;
+
+/**
+ * Immutable snapshot of a generated maze, created with {@link Maze#freeze()}.<br>
+ * Every field is final and none of the arrays are changed after the snapshot is created,
+ * so any number of threads can read the same snapshot without locking.<br>
+ * The solvers in {@link MazeHelper} that accept a frozen maze keep their state in arrays created for each call
+ * @author GOD
+ */
+public final class FrozenMaze
+{
+    //the shape of each room
+    private final Topology topology;
+
+    //the order the rooms are placed in storage
+    private final RoomLayout layout;
+
+    //the shape of the maze, null if every room in the rectangle is part of the maze
+    private final RoomMask mask;
+
+    //the size of the maze
+    private final int cols, rows;
+
+    //the walls of each room, one bit per wall
+    private final byte[] walls;
+
+    //the index of each neighbor room, -1 if there is no neighbor
+    private final int[] neighbors;
+
+    //the start and finish locations
+    private final int startCol, startRow, finishCol, finishRow;
+
+    /**
+     * Create the snapshot
+     * @param maze The maze we are copying
+     * @param walls A copy of the walls of each room
+     * @param neighbors The neighbor table of the maze, which is never changed
+     */
+    FrozenMaze(final Maze maze, final byte[] walls, final int[] neighbors)
+    {
+        this.topology = maze.getTopology();
+        this.layout = maze.getLayout();
+        this.mask = maze.getMask();
+        this.cols = maze.getCols();
+        this.rows = maze.getRows();
+        this.walls = walls;
+        this.neighbors = neighbors;
+        this.startCol = maze.getStartCol();
+        this.startRow = maze.getStartRow();
+        this.finishCol = maze.getFinishCol();
+        this.finishRow = maze.getFinishRow();
+    }
+
+    /**
+     * Get the topology
+     * @return The shape of each room in the maze
+     */
+    public Topology getTopology()
+    {
+        return this.topology;
+    }
+
+    /**
+     * Get the columns
+     * @return The total number of columns in this maze
+     */
+    public int getCols()
+    {
+        return this.cols;
+    }
+
+    /**
+     * Get the rows
+     * @return The total number of rows in this maze
+     */
+    public int getRows()
+    {
+        return this.rows;
+    }
+
+    /**
+     * Get the size
+     * @return The total number of rooms in this maze
+     */
+    public int getSize()
+    {
+        return this.walls.length;
+    }
+
+    /**
+     * Get the start column
+     * @return The start column
+     */
+    public int getStartCol()
+    {
+        return this.startCol;
+    }
+
+    /**
+     * Get the start row
+     * @return The start row
+     */
+    public int getStartRow()
+    {
+        return this.startRow;
+    }
+
+    /**
+     * Get the finish column
+     * @return The finish column
+     */
+    public int getFinishCol()
+    {
+        return this.finishCol;
+    }
+
+    /**
+     * Get the finish row
+     * @return The finish row
+     */
+    public int getFinishRow()
+    {
+        return this.finishRow;
+    }
+
+    /**
+     * Is this location part of the maze?
+     * @param col Column
+     * @param row Row
+     * @return true if the room is in the maze, false otherwise
+     */
+    public boolean hasBounds(final int col, final int row)
+    {
+        if (this.mask != null)
+            return this.mask.isActive(col, row);
+
+        return (col >= 0 && col < getCols() && row >= 0 && row < getRows());
+    }
+
+    /**
+     * Get the index of a room
+     * @param col Column
+     * @param row Row
+     * @return The index of the room
+     */
+    public int getIndex(final int col, final int row)
+    {
+        if (this.mask != null)
+            return this.mask.getIndex(col, row);
+
+        return this.layout.getIndex(col, row, getCols(), getRows());
+    }
+
+    /**
+     * Get the column of a room
+     * @param index The index of the room
+     * @return The column of the room
+     */
+    public int getCol(final int index)
+    {
+        if (this.mask != null)
+            return this.mask.getCol(index);
+
+        return this.layout.getCol(index, getCols(), getRows());
+    }
+
+    /**
+     * Get the row of a room
+     * @param index The index of the room
+     * @return The row of the room
+     */
+    public int getRow(final int index)
+    {
+        if (this.mask != null)
+            return this.mask.getRow(index);
+
+        return this.layout.getRow(index, getCols(), getRows());
+    }
+
+    /**
+     * Does the room have the wall?
+     * @param index The index of the room
+     * @param wall The wall we want to check
+     * @return true if the wall exists, false otherwise
+     */
+    public boolean hasWall(final int index, final Wall wall)
+    {
+        return ((this.walls[index] & wall.getBit()) != 0);
+    }
+
+    /**
+     * Does the room have the wall?
+     * @param col Column
+     * @param row Row
+     * @param wall The wall we want to check
+     * @return true if the wall exists, rooms that aren't part of the maze have every wall
+     */
+    public boolean hasWall(final int col, final int row, final Wall wall)
+    {
+        if (!hasBounds(col, row))
+            return true;
+
+        return hasWall(getIndex(col, row), wall);
+    }
+
+    /**
+     * Get the neighbor
+     * @param index The index of the room
+     * @param wall The index of the wall in our topology
+     * @return The index of the neighbor room, -1 if there is no neighbor in that direction
+     */
+    public int getNeighbor(final int index, final int wall)
+    {
+        return this.neighbors[(index * getTopology().getWallCount()) + wall];
+    }
+
+    /**
+     * Get the open neighbor
+     * @param index The index of the room
+     * @param wall The index of the wall in our topology
+     * @return The index of the neighbor room, -1 if there is no neighbor or a wall is in the way
+     */
+    public int getOpenNeighbor(final int index, final int wall)
+    {
+        if ((this.walls[index] & getTopology().getWall(wall).getBit()) != 0)
+            return -1;
+
+        return getNeighbor(index, wall);
+    }
+
+    /**
+     * Visit every neighbor of the room that isn't blocked by a wall
+     * @param index The index of the room
+     * @param visitor The callback for each neighbor that we can move to
+     */
+    public void forEachOpenNeighbor(final int index, final NeighborVisitor visitor)
+    {
+        for (int i = 0; i < getTopology().getWallCount(); i++)
+        {
+            final int neighbor = getOpenNeighbor(index, i);
+
+            if (neighbor >= 0)
+                visitor.visit(index, neighbor, getTopology().getWall(i));
+        }
+    }
+}
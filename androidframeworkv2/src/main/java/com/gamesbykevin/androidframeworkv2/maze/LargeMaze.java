@@ -0,0 +1,427 @@
+package com.gamesbykevin.androidframeworkv2.maze;
+
+import com.gamesbykevin.androidframeworkv2.base.Cell;
+import com.gamesbykevin.androidframeworkv2.maze.Room.Wall;
+import com.gamesbykevin.androidframeworkv2.util.Progress;
+
+import java.util.Random;
+
+/**
+ * The parent class of mazes that are too large for the heap.<br>
+ * The walls are packed in a {@link LargeRoomStorage} outside of the heap and each room is indexed with a long.<br>
+ * Only the walls leading to the east and south are stored, the other walls are read from the neighbor room,
+ * so a square room only needs 2 bits and a hexagon room 4 bits.<br>
+ * A cleared bit is a wall, so a new maze starts off with every wall without populating any rooms.<br>
+ * There are no costs, visited flags or sets per room, so only generators that keep their state per row can be used
+ * @author GOD
+ */
+public abstract class LargeMaze implements IMaze
+{
+    //the number of columns and rows in this maze
+    private final int cols, rows;
+
+    //the shape of each room in the maze
+    private final Topology topology;
+
+    //the packed walls of every room
+    private LargeRoomStorage storage;
+
+    //our maze generation progress
+    private Progress progress;
+
+    //the start and finish locations
+    private Cell start, finish;
+
+    //the bit of each wall we store in the room, indexed by the wall ordinal, -1 if the wall is stored in the neighbor
+    private final int[] bits;
+
+    //random bits we haven't used yet
+    private int randomBits = 0, randomCount = 0;
+
+    /**
+     * Create a new maze of specified size
+     * @param topology The shape of each room in the maze
+     * @param cols Total columns
+     * @param rows Total rows
+     * @throws Exception If the minimum required dimensions is not provided
+     */
+    protected LargeMaze(final Topology topology, final int cols, final int rows) throws Exception
+    {
+        this(topology, cols, rows, null);
+    }
+
+    /**
+     * Create a new maze of specified size
+     * @param topology The shape of each room in the maze
+     * @param cols Total columns
+     * @param rows Total rows
+     * @param storage Existing storage containing the walls of every room, if null new storage is created
+     * @throws Exception If the minimum required dimensions is not provided, or the storage is too small
+     */
+    protected LargeMaze(final Topology topology, final int cols, final int rows, final LargeRoomStorage storage) throws Exception
+    {
+        if (cols < 2)
+            throw new Exception("The maze must contain at least 2 columns");
+        if (rows < 2)
+            throw new Exception("The maze must contain at least 2 rows");
+
+        this.topology = topology;
+        this.cols = cols;
+        this.rows = rows;
+        this.bits = new int[Wall.values().length];
+
+        int count = 0;
+
+        for (int i = 0; i < topology.getWallCount(); i++)
+        {
+            final Wall wall = topology.getWall(i);
+
+            //only the walls leading to a room later in storage are kept in this room
+            if (isForward(wall))
+            {
+                this.bits[wall.ordinal()] = (1 << count);
+                count++;
+            }
+            else
+            {
+                this.bits[wall.ordinal()] = -1;
+            }
+        }
+
+        //2 bits for square rooms and 4 bits for hexagon rooms
+        final int bitsPerRoom = (count <= 2) ? 2 : 4;
+
+        //create the storage
+        if (storage == null)
+        {
+            this.storage = new LargeRoomStorage(getSize(), bitsPerRoom);
+        }
+        else
+        {
+            if (storage.getSize() < getSize())
+                throw new Exception("The storage doesn't contain enough rooms");
+            if (storage.getBitsPerRoom() != bitsPerRoom)
+                throw new Exception("The storage needs " + bitsPerRoom + " bits per room");
+
+            this.storage = storage;
+        }
+
+        this.progress = new Progress(getSize());
+
+        //create the start/finish locations
+        this.start = new Cell();
+        this.finish = new Cell();
+    }
+
+    /**
+     * Does the wall lead to a room later in storage?
+     * @param wall The wall of the room
+     * @return true if the neighbor is below, or to the east on the same row
+     */
+    private boolean isForward(final Wall wall)
+    {
+        if (getTopology().getRowOffset(wall) != 0)
+            return (getTopology().getRowOffset(wall) > 0);
+
+        return (getTopology().getColOffset(wall, 0) > 0);
+    }
+
+    @Override
+    public void dispose()
+    {
+        if (getStorage() != null)
+        {
+            getStorage().dispose();
+            this.storage = null;
+        }
+    }
+
+    /**
+     * Get the topology
+     * @return The shape of each room in the maze
+     */
+    public Topology getTopology()
+    {
+        return this.topology;
+    }
+
+    /**
+     * Is the maze a hexagon?
+     * @return true if every room is shaped like a hexagon, false otherwise
+     */
+    public boolean isHexagon()
+    {
+        return getTopology().isHexagon();
+    }
+
+    /**
+     * Get the columns
+     * @return The total number of columns in this maze
+     */
+    public int getCols()
+    {
+        return this.cols;
+    }
+
+    /**
+     * Get the rows
+     * @return The total number of rows in this maze
+     */
+    public int getRows()
+    {
+        return this.rows;
+    }
+
+    /**
+     * Get the size
+     * @return The total number of rooms in this maze
+     */
+    public long getSize()
+    {
+        return ((long)getCols() * getRows());
+    }
+
+    /**
+     * Get the start column
+     * @return The start column
+     */
+    public int getStartCol()
+    {
+        return (int)start.getCol();
+    }
+
+    /**
+     * Get the start row
+     * @return The start row
+     */
+    public int getStartRow()
+    {
+        return (int)start.getRow();
+    }
+
+    /**
+     * Assign the starting location
+     * @param col The start column
+     * @param row The start row
+     */
+    public void setStartLocation(final int col, final int row)
+    {
+        this.start.setCol(col);
+        this.start.setRow(row);
+    }
+
+    /**
+     * Get the finish column
+     * @return The finish column
+     */
+    public int getFinishCol()
+    {
+        return (int)finish.getCol();
+    }
+
+    /**
+     * Get the finish row
+     * @return The finish row
+     */
+    public int getFinishRow()
+    {
+        return (int)finish.getRow();
+    }
+
+    /**
+     * Assign the finish location
+     * @param col The finish column
+     * @param row The finish row
+     */
+    public void setFinishLocation(final int col, final int row)
+    {
+        this.finish.setCol(col);
+        this.finish.setRow(row);
+    }
+
+    /**
+     * Get the storage
+     * @return The object containing the walls of every room in the maze
+     */
+    public LargeRoomStorage getStorage()
+    {
+        return this.storage;
+    }
+
+    /**
+     * Get the index of a room
+     * @param col Column
+     * @param row Row
+     * @return The index of the room in our storage
+     */
+    public long getIndex(final int col, final int row)
+    {
+        return ((long)row * getCols()) + col;
+    }
+
+    @Override
+    public boolean hasBounds(final int col, final int row)
+    {
+        return (col >= 0 && col < getCols() && row >= 0 && row < getRows());
+    }
+
+    /**
+     * Does the room have the wall?
+     * @param col Column of the room
+     * @param row Row of the room
+     * @param wall The wall we want to check
+     * @return true if the wall exists, the walls on the edge of the maze always exist
+     */
+    public boolean hasWall(final int col, final int row, final Wall wall)
+    {
+        //the shape of room doesn't have the wall
+        if (!getTopology().hasWall(wall))
+            return true;
+
+        final int tmpCol = col + getTopology().getColOffset(wall, row);
+        final int tmpRow = row + getTopology().getRowOffset(wall);
+
+        //there is no neighbor on the other side
+        if (!hasBounds(tmpCol, tmpRow))
+            return true;
+
+        //the wall is stored in this room
+        if (this.bits[wall.ordinal()] > 0)
+            return ((getStorage().getBits(getIndex(col, row)) & this.bits[wall.ordinal()]) == 0);
+
+        //the wall is stored in the neighbor room
+        final int bit = this.bits[getTopology().getOpposite(wall).ordinal()];
+
+        return ((getStorage().getBits(getIndex(tmpCol, tmpRow)) & bit) == 0);
+    }
+
+    /**
+     * Does a room on the edge of the maze have a passage leading out of the maze?<br>
+     * A generated maze never does, so this is used to check the walls of a maze we didn't generate
+     * @return true if any passage stored in a room leads to a location that isn't part of the maze
+     */
+    boolean hasOpenBorder()
+    {
+        for (int row = 0; row < getRows(); row++)
+        {
+            //the first and last column of every row, and every column of the last row
+            final int step = (row == getRows() - 1) ? 1 : getCols() - 1;
+
+            for (int col = 0; col < getCols(); col += step)
+            {
+                final int value = getStorage().getBits(getIndex(col, row));
+
+                for (int i = 0; i < getTopology().getWallCount(); i++)
+                {
+                    final Wall wall = getTopology().getWall(i);
+
+                    //only the walls stored in this room
+                    if (this.bits[wall.ordinal()] < 0 || (value & this.bits[wall.ordinal()]) == 0)
+                        continue;
+
+                    if (!hasBounds(col + getTopology().getColOffset(wall, row), row + getTopology().getRowOffset(wall)))
+                        return true;
+                }
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Carve a passage through the wall of the room.<br>
+     * This does not validate anything, the neighbor in the direction has to exist
+     * @param col Column of the room
+     * @param row Row of the room
+     * @param direction The wall of the room leading to the neighbor
+     */
+    public void carve(final int col, final int row, final Wall direction)
+    {
+        //the wall is stored in this room
+        if (this.bits[direction.ordinal()] > 0)
+        {
+            getStorage().addBits(getIndex(col, row), this.bits[direction.ordinal()]);
+        }
+        else
+        {
+            final int tmpCol = col + getTopology().getColOffset(direction, row);
+            final int tmpRow = row + getTopology().getRowOffset(direction);
+
+            getStorage().addBits(getIndex(tmpCol, tmpRow), this.bits[getTopology().getOpposite(direction).ordinal()]);
+        }
+    }
+
+    /**
+     * Get a random true or false.<br>
+     * The bits of a single random number are used one at a time, which is much faster for mazes with billions of rooms
+     * @param random Object used to make random decisions
+     * @return true or false
+     */
+    protected boolean nextBoolean(final Random random)
+    {
+        if (this.randomCount == 0)
+        {
+            this.randomBits = random.nextInt();
+            this.randomCount = 32;
+        }
+
+        final boolean result = ((this.randomBits & 1) != 0);
+
+        this.randomBits >>>= 1;
+        this.randomCount--;
+
+        return result;
+    }
+
+    public boolean isGenerated()
+    {
+        return (getProgress().isComplete());
+    }
+
+    /**
+     * Reset the maze so it can be generated again.<br>
+     * The existing memory is reused and every room gets all of its walls back.<br>
+     * Child mazes need to clear any state they use for generating as well
+     */
+    public void reset()
+    {
+        //clearing every bit restores every wall
+        getStorage().clear();
+
+        //forget any random bits we haven't used
+        this.randomCount = 0;
+
+        //we are starting over
+        getProgress().setCount(0);
+    }
+
+    /**
+     * Reset the maze and generate it from the beginning, until the generation is complete
+     * @param random Object used to make random decisions
+     * @throws Exception
+     */
+    public void regenerate(final Random random) throws Exception
+    {
+        reset();
+
+        while (!isGenerated())
+        {
+            update(random);
+        }
+    }
+
+    @Override
+    public Progress getProgress()
+    {
+        return this.progress;
+    }
+
+    /**
+     * Each child maze needs to have logic to generate.<br>
+     * Each update should create at least one entire row of the maze
+     * @param random Object used to make random decisions
+     * @throws Exception
+     */
+    @Override
+    public abstract void update(final Random random) throws Exception;
+}
@@ -0,0 +1,220 @@
+package com.gamesbykevin.androidframeworkv2.maze;
+
+import com.gamesbykevin.androidframeworkv2.base.Disposable;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Packed state of the rooms in a {@link LargeMaze}, stored outside of the java heap.<br>
+ * Each room has a small fixed number of bits, the bits are stored in direct buffers that are split into segments
+ * so we are never limited by the 2GB size of a single buffer.<br>
+ * Rooms are indexed with a long so a maze can have more than {@link Integer#MAX_VALUE} rooms.<br>
+ * This object is not thread safe
+ * @author GOD
+ */
+public class LargeRoomStorage implements Disposable
+{
+    /**
+     * The number of bits used for the byte offset inside a segment
+     */
+    public static final int SEGMENT_BITS = 30;
+
+    /**
+     * The number of bytes in each segment (1GB)
+     */
+    public static final long SEGMENT_SIZE = (1L << SEGMENT_BITS);
+
+    //used to get the offset inside a segment
+    private static final long SEGMENT_MASK = SEGMENT_SIZE - 1;
+
+    //the number of bytes we zero at a time
+    private static final int CLEAR_SIZE = 64 * 1024;
+
+    //the buffers containing the bits of every room
+    private ByteBuffer[] segments;
+
+    //the number of rooms
+    private final long size;
+
+    //the number of bits each room has
+    private final int bits;
+
+    //the bits of a single room
+    private final int mask;
+
+    /**
+     * Create new storage, every bit of every room starts off cleared
+     * @param size The number of rooms
+     * @param bits The number of bits in each room, must be 1, 2, 4 or 8
+     * @throws Exception If the number of bits per room is not supported
+     */
+    public LargeRoomStorage(final long size, final int bits) throws Exception
+    {
+        this(size, bits, createSegments(getByteCount(size, bits)));
+    }
+
+    /**
+     * Create storage using existing buffers.<br>
+     * Every segment except the last has to contain {@link #SEGMENT_SIZE} bytes
+     * @param size The number of rooms
+     * @param bits The number of bits in each room, must be 1, 2, 4 or 8
+     * @param segments The buffers containing the bits of every room
+     * @throws Exception If the number of bits per room is not supported, or there isn't enough room in the segments
+     */
+    public LargeRoomStorage(final long size, final int bits, final ByteBuffer[] segments) throws Exception
+    {
+        if (bits != 1 && bits != 2 && bits != 4 && bits != 8)
+            throw new Exception("The number of bits per room must be 1, 2, 4 or 8: " + bits);
+
+        long capacity = 0;
+
+        for (int index = 0; index < segments.length; index++)
+        {
+            capacity += segments[index].capacity();
+        }
+
+        if (capacity < getByteCount(size, bits))
+            throw new Exception("The segments don't have enough bytes for " + size + " rooms");
+
+        this.size = size;
+        this.bits = bits;
+        this.mask = (1 << bits) - 1;
+        this.segments = segments;
+    }
+
+    /**
+     * Calculate the number of bytes needed
+     * @param size The number of rooms
+     * @param bits The number of bits in each room
+     * @return The number of bytes needed to store every room
+     */
+    public static long getByteCount(final long size, final int bits)
+    {
+        return ((size * bits) + 7) / 8;
+    }
+
+    /**
+     * Allocate the direct buffers
+     * @param bytes The total number of bytes
+     * @return Array of buffers, each one no larger than {@link #SEGMENT_SIZE}
+     */
+    private static ByteBuffer[] createSegments(final long bytes)
+    {
+        final ByteBuffer[] segments = new ByteBuffer[(int)((bytes + SEGMENT_SIZE - 1) / SEGMENT_SIZE)];
+
+        for (int index = 0; index < segments.length; index++)
+        {
+            //the last segment only needs the remaining bytes
+            segments[index] = ByteBuffer.allocateDirect((int)Math.min(SEGMENT_SIZE, bytes - (index * SEGMENT_SIZE)));
+        }
+
+        return segments;
+    }
+
+    @Override
+    public void dispose()
+    {
+        //the direct memory is released once the buffers are garbage collected
+        this.segments = null;
+    }
+
+    /**
+     * Get the size
+     * @return The number of rooms
+     */
+    public long getSize()
+    {
+        return this.size;
+    }
+
+    /**
+     * Get the number of bits
+     * @return The number of bits each room has
+     */
+    public int getBitsPerRoom()
+    {
+        return this.bits;
+    }
+
+    /**
+     * Get the segments
+     * @return The buffers containing the bits of every room
+     */
+    public ByteBuffer[] getSegments()
+    {
+        return this.segments;
+    }
+
+    /**
+     * Get the bits of the room
+     * @param index The index of the room
+     * @return The bits of the room
+     */
+    public int getBits(final long index)
+    {
+        final long bit = index * this.bits;
+        final long offset = bit >>> 3;
+
+        final int value = this.segments[(int)(offset >>> SEGMENT_BITS)].get((int)(offset & SEGMENT_MASK));
+
+        return (value >>> (int)(bit & 7)) & this.mask;
+    }
+
+    /**
+     * Set the bits of the room, the bits of the other rooms sharing the same byte are kept
+     * @param index The index of the room
+     * @param value The new bits of the room
+     */
+    public void setBits(final long index, final int value)
+    {
+        final long bit = index * this.bits;
+        final long offset = bit >>> 3;
+        final int shift = (int)(bit & 7);
+
+        final ByteBuffer segment = this.segments[(int)(offset >>> SEGMENT_BITS)];
+        final int position = (int)(offset & SEGMENT_MASK);
+
+        final int current = segment.get(position);
+
+        segment.put(position, (byte)((current & ~(this.mask << shift)) | ((value & this.mask) << shift)));
+    }
+
+    /**
+     * Add bits to the room
+     * @param index The index of the room
+     * @param value The bits we want to add
+     */
+    public void addBits(final long index, final int value)
+    {
+        final long bit = index * this.bits;
+        final long offset = bit >>> 3;
+
+        final ByteBuffer segment = this.segments[(int)(offset >>> SEGMENT_BITS)];
+        final int position = (int)(offset & SEGMENT_MASK);
+
+        segment.put(position, (byte)(segment.get(position) | ((value & this.mask) << (int)(bit & 7))));
+    }
+
+    /**
+     * Clear the bits of every room
+     */
+    public void clear()
+    {
+        final byte[] zero = new byte[CLEAR_SIZE];
+
+        for (int index = 0; index < this.segments.length; index++)
+        {
+            final ByteBuffer segment = this.segments[index];
+
+            for (int position = 0; position < segment.capacity(); position += CLEAR_SIZE)
+            {
+                final int length = Math.min(CLEAR_SIZE, segment.capacity() - position);
+
+                //absolute bulk put isn't available on android, so we use a duplicate to keep the position of the original
+                final ByteBuffer tmp = segment.duplicate();
+                tmp.position(position);
+                tmp.put(zero, 0, length);
+            }
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.gamesbykevin.androidframeworkv2.maze;
+
+import java.util.Random;
+
+/**
+ * A maze that has already been generated, with the walls read directly from a file mapped into memory.<br>
+ * Nothing is copied when the maze is opened, the pages of the file are only loaded when a wall on them is checked.<br>
+ * A maze opened with {@link MazeFile#open(java.io.File)} is read only, carving a passage will throw a
+ * {@link java.nio.ReadOnlyBufferException}.<br>
+ * This is not a {@link Maze}, so the solvers for {@link Maze} can't use it.
+ * The solvers for {@link LargeMaze} read the walls from the mapping but keep their own state on the heap
+ * @author GOD
+ */
+public class MappedMaze extends LargeMaze
+{
+    /**
+     * Create the maze
+     * @param topology The shape of each room in the maze
+     * @param cols Total columns
+     * @param rows Total rows
+     * @param storage The mapped walls of every room
+     * @throws Exception If the storage doesn't match the size of the maze
+     */
+    MappedMaze(final Topology topology, final int cols, final int rows, final LargeRoomStorage storage) throws Exception
+    {
+        super(topology, cols, rows, storage);
+
+        //the maze in the file is already generated
+        getProgress().markComplete();
+    }
+
+    /**
+     * Check the walls on the edge of the maze.<br>
+     * This reads the first and last room of every row, which loads almost every page of the file,
+     * so it is only done when asked for. A bad edge can't lead out of the maze anyway, {@link #hasWall(int, int, Room.Wall)}
+     * always has a wall where there is no neighbor
+     * @throws Exception If a room on the edge has a passage leading out of the maze, which means the file was changed
+     */
+    public void validate() throws Exception
+    {
+        if (hasOpenBorder())
+            throw new Exception("The maze file has a passage leading out of the maze");
+    }
+
+    /**
+     * The walls in the file are the maze, so there is nothing to reset and the maze stays generated
+     */
+    @Override
+    public void reset()
+    {
+        //nothing to do here
+    }
+
+    /**
+     * The maze in the file is already generated, so the walls don't change
+     * @param random Object used to make random decisions
+     */
+    @Override
+    public void regenerate(final Random random) throws Exception
+    {
+        //nothing to do here
+    }
+
+    /**
+     * The maze is already generated, so there is nothing to update
+     * @param random Object used to make random decisions
+     */
+    @Override
+    public void update(final Random random) throws Exception
+    {
+        //nothing to do here
+    }
+}
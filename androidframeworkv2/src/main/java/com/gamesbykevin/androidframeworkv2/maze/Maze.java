@@ -5,11 +5,6 @@ import com.gamesbykevin.androidframeworkv2.util.Progress;
 
 import java.util.Random;
 
-import static com.gamesbykevin.androidframeworkv2.maze.Room.Wall.NorthEast;
-import static com.gamesbykevin.androidframeworkv2.maze.Room.Wall.NorthWest;
-import static com.gamesbykevin.androidframeworkv2.maze.Room.Wall.SouthEast;
-import static com.gamesbykevin.androidframeworkv2.maze.Room.Wall.SouthWest;
-
 /**
  * The parent Maze class
  * @author GOD
@@ -27,9 +22,15 @@ public abstract class Maze implements IMaze
     private final int rows;
     
     /**
-     * The rooms that make up the maze
+     * The state of the rooms that make up the maze
+     */
+    private RoomStorage storage;
+    
+    /**
+     * The index of each neighbor room, every room has an entry for each wall in the topology.<br>
+     * If there is no neighbor in that direction the index is -1
      */
-    private Room[][] rooms;
+    private int[] neighbors;
     
     //the start and finish locations
     private Cell start, finish;
@@ -40,8 +41,14 @@ public abstract class Maze implements IMaze
     //default maze size
     protected static final int DEFAULT_MAZE_DIMENSION = 10;
 
-    //is each room in  the maze a hexagon?
-    private final boolean hexagon;
+    //the shape of each room in the maze
+    private final Topology topology;
+
+    //the order the rooms are placed in storage
+    private final RoomLayout layout;
+
+    //the shape of the maze, null if every room in the rectangle is part of the maze
+    private final RoomMask mask;
 
     //the start location to render the 2d maze, and the room dimension
     private int x = 0, y = 0, d = 32;
@@ -54,30 +61,85 @@ public abstract class Maze implements IMaze
      * @throws Exception If the minimum required dimensions is not provided
      */
     protected Maze(boolean hexagon, final int cols, final int rows) throws Exception
+    {
+        this(Topology.get(hexagon), cols, rows);
+    }
+
+    /**
+     * Create a new maze of specified size
+     * @param topology The shape of each room in the maze
+     * @param cols Total columns
+     * @param rows Total rows
+     * @throws Exception If the minimum required dimensions is not provided
+     */
+    protected Maze(final Topology topology, final int cols, final int rows) throws Exception
+    {
+        this(topology, RoomLayout.RowMajor, cols, rows);
+    }
+
+    /**
+     * Create a new maze of specified size
+     * @param topology The shape of each room in the maze
+     * @param layout The order the rooms are placed in storage
+     * @param cols Total columns
+     * @param rows Total rows
+     * @throws Exception If the minimum required dimensions is not provided
+     */
+    protected Maze(final Topology topology, final RoomLayout layout, final int cols, final int rows) throws Exception
+    {
+        this(topology, layout, null, cols, rows);
+    }
+
+    /**
+     * Create a new maze in the shape of the mask.<br>
+     * Only the active rooms are stored, and the start location is the first active room
+     * @param topology The shape of each room in the maze
+     * @param mask The rooms that are part of the maze, the active rooms have to be connected
+     * @throws Exception If the minimum required dimensions is not provided, or the active rooms are not connected
+     */
+    protected Maze(final Topology topology, final RoomMask mask) throws Exception
+    {
+        this(topology, RoomLayout.RowMajor, mask, mask.getCols(), mask.getRows());
+
+        if (getSize() < 2)
+            throw new Exception("The mask must contain at least 2 active rooms");
+        if (!isConnected())
+            throw new Exception("The active rooms of the mask must be connected");
+
+        //start in a room that is part of the maze
+        setStartLocation(getCol(0), getRow(0));
+    }
+
+    private Maze(final Topology topology, final RoomLayout layout, final RoomMask mask, final int cols, final int rows) throws Exception
     {
         //assign the shape of room
-        this.hexagon = hexagon;
+        this.topology = topology;
 
-        //clear the cached list just in case
-        Room.getAllWalls(isHexagon(), true);
+        //assign the order of rooms in storage
+        this.layout = layout;
+
+        //assign the shape of the maze
+        this.mask = mask;
 
         if (cols < 2)
             throw new Exception("The maze must contain at least 2 columns");
         if (rows < 2)
             throw new Exception("The maze must contain at least 2 rows");
+        if ((long)cols * rows > Integer.MAX_VALUE)
+            throw new Exception("The maze is too large for the heap, use a LargeMaze instead");
         
         //store dimensions
         this.cols = cols;
         this.rows = rows;
         
-        //create new progress object
-        this.progress = new Progress(cols * rows);
-        
-        //create a new array of rooms 
-        this.rooms = new Room[rows][cols];
-        
-        //now create our rooms
-        createRooms();
+        //create the storage for our rooms
+        this.storage = new RoomStorage((mask == null) ? cols * rows : mask.getSize());
+
+        //create new progress object, we are done when every room is part of the maze
+        this.progress = new Progress(getSize());
+
+        //calculate the neighbors of every room
+        createNeighbors();
         
         //create the start/finish locations
         this.start = new Cell();
@@ -89,7 +151,31 @@ public abstract class Maze implements IMaze
      * @return true if every room is shaped like a hexagon, false otherwise
      */
     public boolean isHexagon() {
-        return this.hexagon;
+        return getTopology().isHexagon();
+    }
+
+    /**
+     * Get the topology
+     * @return The shape of each room in the maze
+     */
+    public Topology getTopology() {
+        return this.topology;
+    }
+    
+    /**
+     * Get the layout
+     * @return The order the rooms are placed in storage
+     */
+    public RoomLayout getLayout() {
+        return this.layout;
+    }
+
+    /**
+     * Get the mask
+     * @return The shape of the maze, null if every room in the rectangle is part of the maze
+     */
+    public RoomMask getMask() {
+        return this.mask;
     }
     
     /**
@@ -123,19 +209,85 @@ public abstract class Maze implements IMaze
     }
     
     /**
-     * Create a room for every (column, row) in our maze
+     * Calculate the index of every neighbor for every room in our maze
      */
-    private void createRooms()
+    private void createNeighbors()
     {
-        for (int row = 0; row < getRows(); row++)
+        final int count = getTopology().getWallCount();
+
+        this.neighbors = new int[getSize() * count];
+
+        for (int index = 0; index < getSize(); index++)
         {
-            for (int col = 0; col < getCols(); col++)
+            final int col = getCol(index);
+            final int row = getRow(index);
+
+            for (int i = 0; i < count; i++)
             {
-                this.rooms[row][col] = new Room(col, row);
+                final Room.Wall wall = getTopology().getWall(i);
+
+                //location of the neighbor
+                final int tmpCol = col + getTopology().getColOffset(wall, row);
+                final int tmpRow = row + getTopology().getRowOffset(wall);
+
+                //store the neighbor index, or -1 if the neighbor is not part of the maze
+                this.neighbors[(index * count) + i] = (hasBounds(tmpCol, tmpRow)) ? getIndex(tmpCol, tmpRow) : -1;
             }
         }
     }
 
+    /**
+     * Can every room be reached from the first room, ignoring the walls?
+     * @return true if the rooms are connected, false otherwise
+     */
+    private boolean isConnected()
+    {
+        final boolean[] reached = new boolean[getSize()];
+
+        //queue of room indexes to check
+        final int[] queue = new int[getSize()];
+        int head = 0, tail = 0;
+
+        reached[0] = true;
+        queue[tail++] = 0;
+
+        while (head < tail)
+        {
+            final int index = queue[head++];
+
+            for (int i = 0; i < getTopology().getWallCount(); i++)
+            {
+                final int neighbor = getNeighbor(index, i);
+
+                if (neighbor >= 0 && !reached[neighbor])
+                {
+                    reached[neighbor] = true;
+                    queue[tail++] = neighbor;
+                }
+            }
+        }
+
+        return (tail == getSize());
+    }
+
+    /**
+     * Get a random room.<br>
+     * Every room in the maze has the same chance to be picked
+     * @param random Object used to make random decisions
+     * @return The index of the room
+     */
+    protected int getRandomIndex(final Random random)
+    {
+        //masks pick from the active rooms only
+        if (getMask() != null)
+            return random.nextInt(getSize());
+
+        final int col = random.nextInt(getCols());
+        final int row = random.nextInt(getRows());
+
+        return getIndex(col, row);
+    }
+
     /**
      * Get the finish location
      * @return The finish (column, row)
@@ -217,21 +369,13 @@ public abstract class Maze implements IMaze
      */
     protected void populateRooms()
     {
-        for (int row = 0; row < getRows(); row++)
-        {
-            for (int col = 0; col < getCols(); col++)
-            {
-                final Room room = getRoom(col, row);
-                
-                //make sure the room exists
-                if (room != null)
-                    getRoom(col, row).addAllWalls(isHexagon());
-            }
-        }
+        //assign every possible wall to every room at once
+        getStorage().fillWalls(getTopology().getWallMask());
     }
     
     /**
-     * Is this location within the bounds of this maze?
+     * Is this location within the bounds of this maze?<br>
+     * If the maze has a mask, the room also has to be active
      * @param col Column
      * @param row Row
      * @return true = yes, false = no
@@ -239,25 +383,23 @@ public abstract class Maze implements IMaze
     @Override
     public boolean hasBounds(final int col, final int row)
     {
+        //the room has to be part of the mask as well
+        if (getMask() != null)
+            return getMask().isActive(col, row);
+
         return (col >= 0 && col < getCols() && row >= 0 && row < getRows());
     }
     
     @Override
     public void dispose()
     {
-        if (getRooms() != null)
+        if (getStorage() != null)
         {
-            for (int row = 0; row < getRows(); row++)
-            {
-                for (int col = 0; col < getCols(); col++)
-                {
-                    this.rooms[row][col].dispose();
-                    this.rooms[row][col] = null;
-                }
-            }
-            
-            this.rooms = null;
+            getStorage().dispose();
+            this.storage = null;
         }
+
+        this.neighbors = null;
     }
 
     protected Room getRoomNeighbor(final Room room, Room.Wall direction) {
@@ -266,49 +408,101 @@ public abstract class Maze implements IMaze
 
     protected Room getRoomNeighbor(final int col, final int row, Room.Wall direction) {
 
-        int tmpCol = direction.getCol();
-        int tmpRow = direction.getRow();
-
-        //need to verify neighbors
-        if (isHexagon()) {
-            switch (direction) {
-
-                case NorthWest:
-                    if (row % 2 == 0) {
-                        tmpCol = -1;
-                    } else {
-                        tmpCol = 0;
-                    }
-                    break;
-
-                case NorthEast:
-                    if (row % 2 == 0) {
-                        tmpCol = 0;
-                    } else {
-                        tmpCol = 1;
-                    }
-                    break;
-
-                case SouthWest:
-                    if (row % 2 == 0) {
-                        tmpCol = -1;
-                    } else {
-                        tmpCol = 0;
-                    }
-                    break;
-
-                case SouthEast:
-                    if (row % 2 == 0) {
-                        tmpCol = 0;
-                    } else {
-                        tmpCol = 1;
-                    }
-                    break;
-            }
+        //use our table when the room is inside the maze
+        if (hasBounds(col, row)) {
+
+            final int neighbor = getNeighbor(getIndex(col, row), direction);
+
+            return (neighbor < 0) ? null : getRoom(neighbor);
+        }
+
+        //return the neighbor room, the offsets already account for the row of a hexagon
+        return getRoom(col + getTopology().getColOffset(direction, row), row + getTopology().getRowOffset(direction));
+    }
+
+    /**
+     * Get the neighbor
+     * @param index The index of the room
+     * @param wall The index of the wall in our topology
+     * @return The index of the neighbor room, -1 if there is no neighbor in that direction
+     */
+    public int getNeighbor(final int index, final int wall)
+    {
+        return this.neighbors[(index * getTopology().getWallCount()) + wall];
+    }
+
+    /**
+     * Get the neighbor
+     * @param index The index of the room
+     * @param direction The wall leading to the neighbor
+     * @return The index of the neighbor room, -1 if there is no neighbor in that direction
+     */
+    public int getNeighbor(final int index, final Room.Wall direction)
+    {
+        final int wall = getTopology().indexOf(direction);
+
+        //the shape of room doesn't have the wall
+        if (wall < 0)
+            return -1;
+
+        return getNeighbor(index, wall);
+    }
+
+    /**
+     * Carve a passage through the wall of the room, the wall is removed from both the room and its neighbor.<br>
+     * This does not validate anything, the neighbor in the direction has to exist.<br>
+     * Use {@link MazeHelper#joinRooms(boolean, Room, Room)} when the rooms still need to be validated
+     * @param index The index of the room
+     * @param direction The wall of the room leading to the neighbor
+     * @return The index of the neighbor room
+     */
+    public int carve(final int index, final Room.Wall direction)
+    {
+        final int neighbor = getNeighbor(index, direction);
+
+        //remove the wall on both sides, readers see both walls removed at the same time
+        getStorage().beginWrite();
+        getStorage().removeWall(index, direction);
+        getStorage().removeWall(neighbor, getTopology().getOpposite(direction));
+        getStorage().endWrite();
+
+        return neighbor;
+    }
+
+    /**
+     * Visit every neighbor of the room
+     * @param index The index of the room
+     * @param visitor The callback for each neighbor that exists
+     */
+    public void forEachNeighbor(final int index, final NeighborVisitor visitor)
+    {
+        final int count = getTopology().getWallCount();
+
+        for (int i = 0; i < count; i++)
+        {
+            final int neighbor = this.neighbors[(index * count) + i];
+
+            if (neighbor >= 0)
+                visitor.visit(index, neighbor, getTopology().getWall(i));
         }
+    }
+
+    /**
+     * Visit every neighbor of the room that isn't blocked by a wall
+     * @param index The index of the room
+     * @param visitor The callback for each neighbor that we can move to
+     */
+    public void forEachOpenNeighbor(final int index, final NeighborVisitor visitor)
+    {
+        final int count = getTopology().getWallCount();
 
-        //return the neighbor room
-        return getRoom(col + tmpCol, row + tmpRow);
+        for (int i = 0; i < count; i++)
+        {
+            final int neighbor = this.neighbors[(index * count) + i];
+
+            if (neighbor >= 0 && !getStorage().hasWall(index, getTopology().getWall(i)))
+                visitor.visit(index, neighbor, getTopology().getWall(i));
+        }
     }
 
     /**
@@ -323,18 +517,109 @@ public abstract class Maze implements IMaze
         if (!hasBounds(col, row))
             return null;
         
-        return getRooms()[row][col];
+        return new Room(getStorage(), getIndex(col, row), col, row);
+    }
+
+    /**
+     * Get the room at the specified index
+     * @param index The index of the room in our storage
+     * @return The room at the specified index
+     */
+    public Room getRoom(final int index)
+    {
+        return new Room(getStorage(), index, getCol(index), getRow(index));
+    }
+
+    /**
+     * Get the index of a room
+     * @param col Column
+     * @param row Row
+     * @return The index of the room in our storage
+     */
+    public int getIndex(final int col, final int row)
+    {
+        if (getMask() != null)
+            return getMask().getIndex(col, row);
+
+        return getLayout().getIndex(col, row, getCols(), getRows());
+    }
+
+    /**
+     * Get the column of a room
+     * @param index The index of the room in our storage
+     * @return The column of the room
+     */
+    public int getCol(final int index)
+    {
+        if (getMask() != null)
+            return getMask().getCol(index);
+
+        return getLayout().getCol(index, getCols(), getRows());
+    }
+
+    /**
+     * Get the row of a room
+     * @param index The index of the room in our storage
+     * @return The row of the room
+     */
+    public int getRow(final int index)
+    {
+        if (getMask() != null)
+            return getMask().getRow(index);
+
+        return getLayout().getRow(index, getCols(), getRows());
+    }
+
+    /**
+     * Get the storage
+     * @return The object containing the state of every room in the maze
+     */
+    public RoomStorage getStorage()
+    {
+        return this.storage;
     }
     
     /**
-     * Get the rooms.
+     * Get the rooms.<br>
+     * The rooms are no longer stored as objects, so a new array of views is created on every call
      * @return The array of rooms that make up the maze
+     * @deprecated Use {@link #getRoom(int, int)} or {@link #getStorage()} instead
      */
+    @Deprecated
     public Room[][] getRooms()
     {
-        return this.rooms;
+        Room[][] rooms = new Room[getRows()][getCols()];
+
+        for (int row = 0; row < getRows(); row++)
+        {
+            for (int col = 0; col < getCols(); col++)
+            {
+                rooms[row][col] = getRoom(col, row);
+            }
+        }
+
+        return rooms;
     }
     
+    /**
+     * Get the size
+     * @return The total number of rooms in this maze
+     */
+    public int getSize()
+    {
+        return getStorage().getSize();
+    }
+
+    /**
+     * Get the bytes.<br>
+     * Child mazes add the arrays they use to generate the maze, so the memory of a maze can be budgeted
+     * @return The estimated number of bytes the arrays of this maze use, the rooms and the neighbor table
+     */
+    public long getBytes()
+    {
+        return (long)getSize() * (RoomStorage.BYTES_PER_ROOM + (4 * getTopology().getWallCount()));
+    }
+
     /**
      * Get the columns
      * @return The total number of columns in this maze
@@ -357,7 +642,97 @@ public abstract class Maze implements IMaze
     {
     	return (getProgress().isComplete());
     }
+
+    /**
+     * Reset the maze so it can be generated again.<br>
+     * The existing memory is reused, every room gets all of its walls back and the progress starts over.<br>
+     * Child mazes need to clear any state they use for generating as well
+     */
+    public void reset()
+    {
+        //restore every room
+        getStorage().reset();
+
+        //fill each room with all walls
+        populateRooms();
+
+        //we are starting over
+        getProgress().setCount(0);
+    }
+
+    /**
+     * Reset the maze and generate it from the beginning, until the generation is complete
+     * @param random Object used to make random decisions
+     * @throws Exception
+     */
+    public void regenerate(final Random random) throws Exception
+    {
+        reset();
+
+        while (!isGenerated())
+        {
+            update(random);
+        }
+    }
     
+    /**
+     * Create an immutable snapshot of the maze.<br>
+     * The snapshot has its own copy of the walls, so it can be shared between threads while this maze keeps changing.<br>
+     * This can be called from another thread while the maze is being generated, the walls are copied as they were at a single moment
+     * @return The frozen maze
+     */
+    public FrozenMaze freeze()
+    {
+        //the neighbor table is never changed, so it can be shared
+        return new FrozenMaze(this, getStorage().copyWalls(), this.neighbors);
+    }
+
+    /**
+     * Copy the walls of every room, this can be called from another thread while the maze is being generated.<br>
+     * The copy is consistent, a passage is never seen carved on only one side.
+     * Compare the result with {@link #getVersion()} to skip copying walls that haven't changed
+     * @param walls The array to copy into, it needs at least {@link #getSize()} elements, indexed the same as the rooms
+     * @return The version of the walls that were copied
+     */
+    public int copyWalls(final byte[] walls)
+    {
+        return getStorage().copyWalls(walls);
+    }
+
+    /**
+     * Get the version of the walls, this can be called from any thread
+     * @return A value that changes every time the walls change
+     */
+    public int getVersion()
+    {
+        return getStorage().getVersion();
+    }
+
+    /**
+     * Start recording every wall change, so a renderer can redraw only the rooms that changed.<br>
+     * This has to be called before the maze is generated on another thread, the journal is drained by the renderer
+     * @param capacity The number of changes kept until they are drained
+     * @return The journal recording the changes
+     * @throws Exception If the capacity is not valid
+     */
+    public WallJournal createJournal(final int capacity) throws Exception
+    {
+        final WallJournal journal = new WallJournal(capacity, getSize());
+
+        getStorage().setJournal(journal);
+
+        return journal;
+    }
+
+    /**
+     * Get the journal
+     * @return The record of every wall change, null if changes aren't recorded
+     */
+    public WallJournal getJournal()
+    {
+        return getStorage().getJournal();
+    }
+
     @Override
     public Progress getProgress()
     {
@@ -366,25 +741,11 @@ public abstract class Maze implements IMaze
     
     /**
      * Update the progress of our maze creation.<br>
-     * Here we track the progress by the number of visited rooms.
+     * Here we track the progress by the number of visited rooms, which the storage keeps count of.
      */
     protected void updateProgress()
     {
-        int count = 0;
-        
-        //check all rooms
-        for (int row = 0; row < getRows(); row++)
-        {
-            for (int col = 0; col < getCols(); col++)
-            {
-                //keep track of number of visited rooms
-                if (getRoom(col, row).hasVisited())
-                    count++;
-            }
-        }
-        
-        //update the progress
-        getProgress().setCount(count);
+        getProgress().setCount(getStorage().getVisitedCount());
     }
     
     /**
@@ -0,0 +1,277 @@
+package com.gamesbykevin.androidframeworkv2.maze;
+
+import com.gamesbykevin.androidframeworkv2.maze.Room.Wall;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Binary file format for generated mazes.<br>
+ * The file starts with a header of {@link #HEADER_SIZE} bytes containing the topology, size, start and finish.<br>
+ * The packed walls follow the header in the same format as {@link LargeRoomStorage},
+ * so a maze can be opened by mapping the file without reading or converting the walls.<br>
+ * Every room of the rectangle is stored, so mazes with a {@link RoomMask} can't be written
+ * @author GOD
+ */
+public class MazeFile
+{
+    /**
+     * The first 4 bytes of every maze file ("MAZE")
+     */
+    public static final int MAGIC = 0x4D415A45;
+
+    /**
+     * The version of the file format
+     */
+    public static final int VERSION = 1;
+
+    /**
+     * The number of bytes before the walls start
+     */
+    public static final int HEADER_SIZE = 64;
+
+    /**
+     * Write the maze to a file
+     * @param maze The generated maze
+     * @param file The file we want to create, an existing file will be replaced
+     * @throws Exception If the maze has a mask, or the file could not be written
+     */
+    public static void write(final Maze maze, final File file) throws Exception
+    {
+        //the file has no way to store the shape of the maze
+        if (maze.getMask() != null)
+            throw new Exception("Mazes with a mask can't be written to a maze file");
+
+        final MappedMaze target = create(file, maze.getTopology(), maze.getCols(), maze.getRows(),
+            maze.getStartCol(), maze.getStartRow(), maze.getFinishCol(), maze.getFinishRow());
+
+        final Topology topology = maze.getTopology();
+
+        //open every passage in the file
+        for (int row = 0; row < maze.getRows(); row++)
+        {
+            for (int col = 0; col < maze.getCols(); col++)
+            {
+                final int index = maze.getIndex(col, row);
+
+                for (int i = 0; i < topology.getWallCount(); i++)
+                {
+                    final Wall wall = topology.getWall(i);
+
+                    if (maze.getNeighbor(index, i) >= 0 && !maze.getStorage().hasWall(index, wall))
+                        target.carve(col, row, wall);
+                }
+            }
+        }
+
+        force(target.getStorage());
+        target.dispose();
+    }
+
+    /**
+     * Write the maze to a file
+     * @param maze The generated maze
+     * @param file The file we want to create, an existing file will be replaced
+     * @throws Exception If the file could not be written
+     */
+    public static void write(final LargeMaze maze, final File file) throws Exception
+    {
+        final MappedMaze target = create(file, maze.getTopology(), maze.getCols(), maze.getRows(),
+            maze.getStartCol(), maze.getStartRow(), maze.getFinishCol(), maze.getFinishRow());
+
+        final ByteBuffer[] sources = maze.getStorage().getSegments();
+        final ByteBuffer[] destinations = target.getStorage().getSegments();
+
+        //the walls are stored the same way, so we copy the bytes as they are
+        for (int index = 0; index < destinations.length; index++)
+        {
+            final ByteBuffer source = sources[index].duplicate();
+            final ByteBuffer destination = destinations[index].duplicate();
+
+            source.clear();
+            source.limit(destination.capacity());
+            destination.clear();
+            destination.put(source);
+        }
+
+        force(target.getStorage());
+        target.dispose();
+    }
+
+    /**
+     * Open a maze file.<br>
+     * The walls are mapped into memory, they are not read until they are needed.
+     * Only the header is checked, call {@link MappedMaze#validate()} to also check the walls on the edge of the maze
+     * @param file The maze file
+     * @return Read only maze containing the walls in the file
+     * @throws Exception If the file is not a maze file or could not be read
+     */
+    public static MappedMaze open(final File file) throws Exception
+    {
+        final RandomAccessFile access = new RandomAccessFile(file, "r");
+
+        try
+        {
+            final FileChannel channel = access.getChannel();
+
+            //read the header
+            final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+
+            while (header.hasRemaining())
+            {
+                if (channel.read(header, header.position()) < 0)
+                    throw new Exception("The maze file is missing the header");
+            }
+
+            header.flip();
+
+            if (header.getInt() != MAGIC)
+                throw new Exception("The file is not a maze file");
+            if (header.getInt() != VERSION)
+                throw new Exception("The maze file version is not supported");
+
+            final Topology topology = Topology.get(header.getInt() != 0);
+            final int cols = header.getInt();
+            final int rows = header.getInt();
+            final int startCol = header.getInt();
+            final int startRow = header.getInt();
+            final int finishCol = header.getInt();
+            final int finishRow = header.getInt();
+            final int bits = header.getInt();
+
+            if (cols < 2 || rows < 2)
+                throw new Exception("The maze file has an invalid size: " + cols + "x" + rows);
+            if (bits != getBits(topology))
+                throw new Exception("The maze file needs " + getBits(topology) + " bits per room");
+            if (!hasLocation(startCol, startRow, cols, rows) || !hasLocation(finishCol, finishRow, cols, rows))
+                throw new Exception("The start or finish of the maze file is outside the maze");
+
+            final long size = (long)cols * rows;
+
+            //the file is created with the exact length
+            if (channel.size() != HEADER_SIZE + LargeRoomStorage.getByteCount(size, bits))
+                throw new Exception("The maze file size doesn't match the size of the maze");
+
+            //map the walls, the mapping stays valid after the file is closed
+            final LargeRoomStorage storage = new LargeRoomStorage(size, bits,
+                map(channel, FileChannel.MapMode.READ_ONLY, LargeRoomStorage.getByteCount(size, bits)));
+
+            final MappedMaze maze = new MappedMaze(topology, cols, rows, storage);
+            maze.setStartLocation(startCol, startRow);
+            maze.setFinishLocation(finishCol, finishRow);
+
+            return maze;
+        }
+        finally
+        {
+            access.close();
+        }
+    }
+
+    /**
+     * Create a maze file with every wall, and map the walls so they can be written
+     * @return Maze that writes directly to the file
+     */
+    private static MappedMaze create(final File file, final Topology topology, final int cols, final int rows,
+        final int startCol, final int startRow, final int finishCol, final int finishRow) throws Exception
+    {
+        final long size = (long)cols * rows;
+        final int bits = getBits(topology);
+        final long bytes = LargeRoomStorage.getByteCount(size, bits);
+
+        final RandomAccessFile access = new RandomAccessFile(file, "rw");
+
+        try
+        {
+            //start with an empty file, so every wall exists
+            access.setLength(0);
+            access.setLength(HEADER_SIZE + bytes);
+
+            final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(MAGIC);
+            header.putInt(VERSION);
+            header.putInt((topology.isHexagon()) ? 1 : 0);
+            header.putInt(cols);
+            header.putInt(rows);
+            header.putInt(startCol);
+            header.putInt(startRow);
+            header.putInt(finishCol);
+            header.putInt(finishRow);
+            header.putInt(bits);
+            header.clear();
+
+            final FileChannel channel = access.getChannel();
+
+            while (header.hasRemaining())
+            {
+                channel.write(header, header.position());
+            }
+
+            return new MappedMaze(topology, cols, rows, new LargeRoomStorage(size, bits, map(channel, FileChannel.MapMode.READ_WRITE, bytes)));
+        }
+        finally
+        {
+            access.close();
+        }
+    }
+
+    /**
+     * Get the bits per room
+     * @param topology The shape of each room
+     * @return The number of bits each room uses in the file, the same as {@link LargeMaze}
+     */
+    private static int getBits(final Topology topology)
+    {
+        return (topology.isHexagon()) ? 4 : 2;
+    }
+
+    /**
+     * Is the location in the maze?
+     * @param col Column
+     * @param row Row
+     * @param cols Total columns
+     * @param rows Total rows
+     * @return true if the location is inside the maze, false otherwise
+     */
+    private static boolean hasLocation(final int col, final int row, final int cols, final int rows)
+    {
+        return (col >= 0 && col < cols && row >= 0 && row < rows);
+    }
+
+    /**
+     * Map the walls of a maze file, each segment is {@link LargeRoomStorage#SEGMENT_SIZE} bytes except the last
+     * @param channel The open file
+     * @param mode Read only, or read and write
+     * @param bytes The number of bytes containing walls
+     * @return The mapped segments
+     * @throws Exception If the file could not be mapped
+     */
+    private static ByteBuffer[] map(final FileChannel channel, final FileChannel.MapMode mode, final long bytes) throws Exception
+    {
+        final ByteBuffer[] segments = new ByteBuffer[(int)((bytes + LargeRoomStorage.SEGMENT_SIZE - 1) / LargeRoomStorage.SEGMENT_SIZE)];
+
+        for (int index = 0; index < segments.length; index++)
+        {
+            final long position = index * LargeRoomStorage.SEGMENT_SIZE;
+
+            segments[index] = channel.map(mode, HEADER_SIZE + position, Math.min(LargeRoomStorage.SEGMENT_SIZE, bytes - position));
+        }
+
+        return segments;
+    }
+
+    /**
+     * Make sure every change to the mapped walls is written to the file
+     * @param storage The mapped walls
+     */
+    private static void force(final LargeRoomStorage storage)
+    {
+        for (ByteBuffer segment : storage.getSegments())
+        {
+            ((MappedByteBuffer)segment).force();
+        }
+    }
+}
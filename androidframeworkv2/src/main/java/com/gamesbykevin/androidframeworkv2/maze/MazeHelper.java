@@ -2,8 +2,7 @@ package com.gamesbykevin.androidframeworkv2.maze;
 
 import com.gamesbykevin.androidframeworkv2.maze.Room.Wall;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Arrays;
 
 /**
  * Maze Helper methods
@@ -13,118 +12,30 @@ public class MazeHelper
 {
     /**
      * Join the rooms.<br>
-     * We will remove the wall from both rooms to create a passage.
+     * We will remove the wall from both rooms to create a passage.<br>
+     * Generators that already know the rooms are neighbors should use {@link Maze#carve(int, Wall)} instead
+     * @param hexagon Is each room a hexagon?
      * @param room1 Room 1
      * @param room2 Room 2
      * @throws Exception If the rooms are not neighbors
      */
     public static void joinRooms(final boolean hexagon, final Room room1, final Room room2) throws Exception
     {
-        //calculate how distant the rooms are from one another
-        int colDiff = (room1.getCol() > room2.getCol()) ? room1.getCol() - room2.getCol() : room2.getCol() - room1.getCol();
-        int rowDiff = (room1.getRow() > room2.getRow()) ? room1.getRow() - room2.getRow() : room2.getRow() - room1.getRow();
+        final Topology topology = Topology.get(hexagon);
 
-        //make sure the distance isn't too far apart
-        if (colDiff > 1 || colDiff < -1 || rowDiff > 1 || rowDiff < -1)
-            throw new Exception("The rooms are not neighbors");
-
-        if (hexagon) {
-
-            //north east
-            if (room1.getRow() > room2.getRow()) {
-                if (room1.getRow() % 2 == 0) {
-                    if (room1.getCol() == room2.getCol()) {
-                        room1.removeWall(Wall.NorthEast);
-                        room2.removeWall(Wall.SouthWest);
-                    }
-                } else {
-                    if (room1.getCol() < room2.getCol()) {
-                        room1.removeWall(Wall.NorthEast);
-                        room2.removeWall(Wall.SouthWest);
-                    }
-                }
-            }
-
-            //south east
-            if (room1.getRow() < room2.getRow()) {
-                if (room1.getRow() % 2 == 0) {
-                    if (room1.getCol() == room2.getCol()) {
-                        room1.removeWall(Wall.SouthEast);
-                        room2.removeWall(Wall.NorthWest);
-                    }
-                } else {
-                    if (room1.getCol() < room2.getCol()) {
-                        room1.removeWall(Wall.SouthEast);
-                        room2.removeWall(Wall.NorthWest);
-                    }
-                }
-            }
-
-            //west
-            if (room1.getRow() == room2.getRow() && room1.getCol() > room2.getCol()) {
-                room1.removeWall(Wall.West);
-                room2.removeWall(Wall.East);
-            }
-
-            //east
-            if (room1.getRow() == room2.getRow() && room1.getCol() < room2.getCol()) {
-                room1.removeWall(Wall.East);
-                room2.removeWall(Wall.West);
-            }
+        //find the wall of room 1 that leads to room 2
+        final Wall direction = topology.getDirection(room1.getCol(), room1.getRow(), room2.getCol(), room2.getRow());
 
-            //north west
-            if (room1.getRow() > room2.getRow()) {
-                if (room1.getRow() % 2 == 0) {
-                    if (room1.getCol() > room2.getCol()) {
-                        room1.removeWall(Wall.NorthWest);
-                        room2.removeWall(Wall.SouthEast);
-                    }
-                } else {
-                    if (room1.getCol() == room2.getCol()) {
-                        room1.removeWall(Wall.NorthWest);
-                        room2.removeWall(Wall.SouthEast);
-                    }
-                }
-            }
-
-            //south west
-            if (room1.getRow() < room2.getRow()) {
-                if (room1.getRow() % 2 == 0) {
-                    if (room1.getCol() > room2.getCol()) {
-                        room1.removeWall(Wall.SouthWest);
-                        room2.removeWall(Wall.NorthEast);
-                    }
-                } else {
-                    if (room1.getCol() == room2.getCol()) {
-                        room1.removeWall(Wall.SouthWest);
-                        room2.removeWall(Wall.NorthEast);
-                    }
-                }
-            }
+        //make sure the rooms are next to each other
+        if (direction == null)
+            throw new Exception("The rooms are not neighbors");
 
-        } else {
-
-            //if the columns are not equal they are horizontal neighbors
-            if (colDiff != 0) {
-                if (room1.getCol() > room2.getCol()) {
-                    room1.removeWall(Room.Wall.West);
-                    room2.removeWall(Room.Wall.East);
-                } else {
-                    room1.removeWall(Room.Wall.East);
-                    room2.removeWall(Room.Wall.West);
-                }
-            } else {
-
-                //they are vertical neighbors
-                if (room1.getRow() > room2.getRow()) {
-                    room1.removeWall(Room.Wall.North);
-                    room2.removeWall(Room.Wall.South);
-                } else {
-                    room1.removeWall(Room.Wall.South);
-                    room2.removeWall(Room.Wall.North);
-                }
-            }
-        }
+        //remove the wall on both sides, readers see both walls removed at the same time
+        final RoomStorage storage = room1.getStorage();
+        storage.beginWrite();
+        room1.removeWall(direction);
+        room2.removeWall(topology.getOpposite(direction));
+        storage.endWrite();
     }
     
     /**
@@ -135,72 +46,55 @@ public class MazeHelper
     public static void calculateCost(final Maze maze) throws Exception
     {
         //mark all rooms as not visited so we know which ones to check
-        for (int row = 0; row < maze.getRows(); row++)
-        {
-            for (int col = 0; col < maze.getCols(); col++)
-            {
-                maze.getRoom(col, row).setVisited(false);
-            }
-        }
-        
-        //create empty list of optional walls
-        List<Room> options = new ArrayList<>();
+        setVisitedAll(maze, false);
+
+        final RoomStorage storage = maze.getStorage();
+        final Topology topology = maze.getTopology();
+
+        //queue of room indexes to check, each room is added at most once
+        final int[] options = new int[storage.getSize()];
+
+        //where we read from and write to in the queue
+        int head = 0, tail = 0;
         
         //get the room at the starting point 
-        Room room = maze.getRoom(maze.getStartCol(), maze.getStartRow());
+        final int start = maze.getIndex(maze.getStartCol(), maze.getStartRow());
         
         //the starting point will have a cost of 0
-        room.setCost(0);
+        storage.setCost(start, 0);
+        storage.setVisited(start, true);
         
         //add the room to our options list
-        options.add(room);
+        options[tail++] = start;
         
         //continue as long as we have rooms to check
-        while (!options.isEmpty())
+        while (head < tail)
         {
             //get the current room
-            room = options.get(0);
-            
-            //flag the current room as visited
-            room.setVisited(true);
-
-            //check if the room in the specified direction can be added to the options list
-            for (Wall wall : Room.getAllWalls(maze.isHexagon())) {
-                performRoomCheck(maze, room, wall, options);
-            }
+            final int room = options[head++];
 
-            //now that we have checked the current room, remove from our list
-            options.remove(0);
-        }
-    }
-    
-    /**
-     * Check if we can add the neighbor room to the existing options list.<br>
-     * If so we will add to the options list.
-     * @param current The current room we are in
-     * @param direction The direction we want to check from the current room
-     * @param options List of existing rooms we can add to
-     * @throws Exception If the specified direction is not handled
-     */
-    private static void performRoomCheck(final Maze maze, final Room current, final Room.Wall direction, final List<Room> options) throws Exception
-    {
-        //get the neighbor room
-        Room neighbor = maze.getRoomNeighbor(current, direction);
-
-        //make sure room exists and we haven't already visited
-        if (neighbor != null && !neighbor.hasVisited())
-        {
-            //if there isn't a wall blocking the current room
-            if (!current.hasWall(direction))
+            //check if the room in each direction can be added to the options list
+            for (int i = 0; i < topology.getWallCount(); i++)
             {
+                //get the neighbor room
+                final int neighbor = maze.getNeighbor(room, i);
+
+                //make sure room exists and we haven't already visited
+                if (neighbor < 0 || storage.hasVisited(neighbor))
+                    continue;
+
+                //if there is a wall blocking the current room
+                if (storage.hasWall(room, topology.getWall(i)))
+                    continue;
+
                 //assign the cost
-                neighbor.setCost(current.getCost() + 1);
-                
-                //mark if as visited
-                neighbor.setVisited(true);
-                
+                storage.setCost(neighbor, storage.getCost(room) + 1);
+
+                //mark it as visited
+                storage.setVisited(neighbor, true);
+
                 //add it to our list of rooms to check
-                options.add(neighbor);
+                options[tail++] = neighbor;
             }
         }
     }
@@ -218,58 +112,258 @@ public class MazeHelper
         //the cost to beat
         int cost = 0;
         
-        for (int row = 0; row < maze.getRows(); row++)
+        for (int index = 0; index < maze.getSize(); index++)
         {
-            for (int col = 0; col < maze.getCols(); col++)
+            //if the cost is higher than our record
+            if (maze.getStorage().getCost(index) > cost)
             {
-                final Room room = maze.getRoom(col, row);
+                //assign the winning cost
+                cost = maze.getStorage().getCost(index);
                 
-                //if the cost is higher than our record
-                if (room.getCost() > cost)
-                {
-                    //assign the winning cost
-                    cost = room.getCost();
-                    
-                    //assign the finish location
-                    maze.setFinishLocation(col, row);
-                }
+                //assign the finish location
+                maze.setFinishLocation(maze.getCol(index), maze.getRow(index));
             }
         }
     }
     
     /**
-     * Do we have a visited room?<br>
-     * This can be used to determine if we have started to create our maze
-     * @return true if at least 1 room has been visited, false otherwise
+     * Calculate the cost of each room in a large maze.<br>
+     * The starting point will have a cost of 0, each neighboring room will contain the cost of the previous room + 1.<br>
+     * The walls are only read, so this also works for a read only {@link MappedMaze}.<br>
+     * This is not zero copy, the cost and the queue of rooms to check are 2 int arrays on the heap (8 bytes per room),
+     * which is much more than the 2 or 4 bits per room of the walls, so the maze has to fit in the heap 8 times over
+     * @param maze The generated maze
+     * @return The cost of each room, indexed by {@link LargeMaze#getIndex(int, int)}
+     * @throws Exception If the maze has too many rooms for an array
      */
-    public static boolean hasVisited(final Maze maze)
+    public static int[] calculateCost(final LargeMaze maze) throws Exception
     {
-        for (int row = 0; row < maze.getRows(); row++)
+        if (maze.getSize() > Integer.MAX_VALUE)
+            throw new Exception("The maze has too many rooms to calculate the cost");
+
+        final Topology topology = maze.getTopology();
+
+        //the cost of each room, -1 if we haven't visited the room
+        final int[] costs = new int[(int)maze.getSize()];
+        Arrays.fill(costs, -1);
+
+        //queue of room indexes to check, each room is added at most once
+        final int[] options = new int[costs.length];
+
+        //where we read from and write to in the queue
+        int head = 0, tail = 0;
+
+        //the starting point will have a cost of 0
+        final int start = (int)maze.getIndex(maze.getStartCol(), maze.getStartRow());
+        costs[start] = 0;
+        options[tail++] = start;
+
+        //continue as long as we have rooms to check
+        while (head < tail)
         {
-            for (int col = 0; col < maze.getCols(); col++)
+            //get the current room
+            final int room = options[head++];
+            final int col = room % maze.getCols();
+            final int row = room / maze.getCols();
+
+            for (int i = 0; i < topology.getWallCount(); i++)
             {
-                //if this room has been visited return true
-                if (maze.getRoom(col, row).hasVisited())
-                    return true;
+                final Wall wall = topology.getWall(i);
+
+                final int tmpCol = col + topology.getColOffset(wall, row);
+                final int tmpRow = row + topology.getRowOffset(wall);
+
+                //if there is no neighbor, or there is a wall blocking the current room
+                if (!maze.hasBounds(tmpCol, tmpRow) || maze.hasWall(col, row, wall))
+                    continue;
+
+                final int neighbor = (int)maze.getIndex(tmpCol, tmpRow);
+
+                //make sure we haven't already visited
+                if (costs[neighbor] >= 0)
+                    continue;
+
+                //assign the cost and add it to our list of rooms to check
+                costs[neighbor] = costs[room] + 1;
+                options[tail++] = neighbor;
             }
         }
-        
-        //no rooms have been visited
-        return false;
+
+        return costs;
     }
-    
+
     /**
-     * Update all room as visited/un-visited
-     * @param visited True if we want the rooms visited, false otherwise
+     * Locate the finish position of a large maze automatically.<br>
+     * The room with the highest cost (room furthest from starting point) will be the finish.<br>
+     * This uses {@link #calculateCost(LargeMaze)}, so it needs 8 bytes of heap for each room
+     * @param maze The generated maze
+     * @throws Exception If the maze has too many rooms for an array
      */
-    public static void setVisitedAll(final Maze maze, final boolean visited)
+    public static void locateFinish(final LargeMaze maze) throws Exception
+    {
+        final int[] costs = calculateCost(maze);
+
+        //the room with the highest cost
+        int finish = 0;
+
+        for (int index = 1; index < costs.length; index++)
+        {
+            if (costs[index] > costs[finish])
+                finish = index;
+        }
+
+        maze.setFinishLocation(finish % maze.getCols(), finish / maze.getCols());
+    }
+
+    /**
+     * Calculate the cost of each room in a frozen maze, from the start location
+     * @param maze The frozen maze
+     * @return The cost of each room indexed by the room index, -1 if the room can't be reached
+     */
+    public static int[] calculateCost(final FrozenMaze maze)
+    {
+        return calculateCost(maze, maze.getIndex(maze.getStartCol(), maze.getStartRow()));
+    }
+
+    /**
+     * Calculate the cost of each room in a frozen maze.<br>
+     * The state is kept in arrays created for this call, so many threads can use the same maze at once
+     * @param maze The frozen maze
+     * @param start The index of the room with a cost of 0
+     * @return The cost of each room indexed by the room index, -1 if the room can't be reached
+     */
+    public static int[] calculateCost(final FrozenMaze maze, final int start)
+    {
+        //the cost of each room, -1 if we haven't visited the room
+        final int[] costs = new int[maze.getSize()];
+        Arrays.fill(costs, -1);
+
+        //queue of room indexes to check, each room is added at most once
+        final int[] options = new int[costs.length];
+
+        //where we read from and write to in the queue
+        int head = 0, tail = 0;
+
+        costs[start] = 0;
+        options[tail++] = start;
+
+        while (head < tail)
+        {
+            final int room = options[head++];
+
+            for (int i = 0; i < maze.getTopology().getWallCount(); i++)
+            {
+                final int neighbor = maze.getOpenNeighbor(room, i);
+
+                //make sure we can move to the room and haven't already visited
+                if (neighbor < 0 || costs[neighbor] >= 0)
+                    continue;
+
+                costs[neighbor] = costs[room] + 1;
+                options[tail++] = neighbor;
+            }
+        }
+
+        return costs;
+    }
+
+    /**
+     * Locate the room furthest from the start location of a frozen maze
+     * @param maze The frozen maze
+     * @return The index of the room with the highest cost
+     */
+    public static int locateFinish(final FrozenMaze maze)
+    {
+        final int[] costs = calculateCost(maze);
+
+        //the room with the highest cost
+        int finish = 0;
+
+        for (int index = 1; index < costs.length; index++)
+        {
+            if (costs[index] > costs[finish])
+                finish = index;
+        }
+
+        return finish;
+    }
+
+    /**
+     * Find the shortest path between 2 rooms of a frozen maze.<br>
+     * The state is kept in arrays created for this call, so many threads can use the same maze at once
+     * @param maze The frozen maze
+     * @param from The index of the room we start at
+     * @param to The index of the room we want to reach
+     * @return The index of every room on the path, including both ends. Empty if the room can't be reached
+     */
+    public static int[] getPath(final FrozenMaze maze, final int from, final int to)
     {
-        for (int row = 0; row < maze.getRows(); row++)
+        //the room we came from to reach each room, -1 if we haven't reached the room
+        final int[] previous = new int[maze.getSize()];
+        Arrays.fill(previous, -1);
+
+        //queue of room indexes to check
+        final int[] options = new int[previous.length];
+        int head = 0, tail = 0;
+
+        previous[from] = from;
+        options[tail++] = from;
+
+        while (head < tail && previous[to] < 0)
         {
-            for (int col = 0; col < maze.getCols(); col++)
+            final int room = options[head++];
+
+            for (int i = 0; i < maze.getTopology().getWallCount(); i++)
             {
-                maze.getRoom(col, row).setVisited(visited);
+                final int neighbor = maze.getOpenNeighbor(room, i);
+
+                if (neighbor < 0 || previous[neighbor] >= 0)
+                    continue;
+
+                previous[neighbor] = room;
+                options[tail++] = neighbor;
             }
         }
+
+        //we couldn't reach the room
+        if (previous[to] < 0)
+            return new int[0];
+
+        //count the rooms on the path
+        int length = 1;
+
+        for (int room = to; room != from; room = previous[room])
+        {
+            length++;
+        }
+
+        //walk back from the end to fill the path
+        final int[] path = new int[length];
+
+        for (int room = to, index = length - 1; index >= 0; room = previous[room], index--)
+        {
+            path[index] = room;
+        }
+
+        return path;
+    }
+
+    /**
+     * Do we have a visited room?<br>
+     * This can be used to determine if we have started to create our maze
+     * @return true if at least 1 room has been visited, false otherwise
+     */
+    public static boolean hasVisited(final Maze maze)
+    {
+        return (maze.getStorage().getVisitedCount() > 0);
+    }
+    
+    /**
+     * Update all room as visited/un-visited
+     * @param visited True if we want the rooms visited, false otherwise
+     */
+    public static void setVisitedAll(final Maze maze, final boolean visited)
+    {
+        maze.getStorage().setVisitedAll(visited);
     }
 }
\ No newline at end of file
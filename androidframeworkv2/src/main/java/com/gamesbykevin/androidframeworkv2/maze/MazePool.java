@@ -0,0 +1,164 @@
+package com.gamesbykevin.androidframeworkv2.maze;
+
+import com.gamesbykevin.androidframeworkv2.base.Disposable;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Pool of mazes that can be reused instead of creating a new maze every level.<br>
+ * Mazes are grouped by the algorithm, topology and size, a maze taken from the pool is reset so it can be generated again.<br>
+ * Each maze algorithm needs a constructor with the parameters (Topology, int, int) to be created by the pool,
+ * so the pool only keeps mazes created that way, with the {@link RoomLayout#RowMajor} layout and no {@link RoomMask}
+ * @author GOD
+ */
+public class MazePool implements Disposable
+{
+    //the default number of mazes we keep of each kind
+    public static final int DEFAULT_LIMIT = 1;
+
+    //the mazes that are available to be reused
+    private Map<Key, List<Maze>> mazes;
+
+    //the number of mazes we keep of each kind
+    private final int limit;
+
+    /**
+     * Create a pool that keeps the default number of mazes of each kind
+     */
+    public MazePool()
+    {
+        this(DEFAULT_LIMIT);
+    }
+
+    /**
+     * Create a pool
+     * @param limit The number of mazes we keep of each algorithm, topology and size
+     */
+    public MazePool(final int limit)
+    {
+        this.limit = limit;
+        this.mazes = new HashMap<>();
+    }
+
+    @Override
+    public synchronized void dispose()
+    {
+        //dispose every maze still in the pool
+        for (List<Maze> list : this.mazes.values())
+        {
+            for (int index = 0; index < list.size(); index++)
+            {
+                list.get(index).dispose();
+            }
+
+            list.clear();
+        }
+
+        this.mazes.clear();
+    }
+
+    /**
+     * Get a maze from the pool.<br>
+     * If there is no maze available a new one will be created
+     * @param type The maze algorithm
+     * @param topology The shape of each room in the maze
+     * @param cols Total columns
+     * @param rows Total rows
+     * @return A maze that is ready to be generated
+     * @throws Exception If the maze could not be created
+     */
+    public <T extends Maze> T obtain(final Class<T> type, final Topology topology, final int cols, final int rows) throws Exception
+    {
+        final Maze maze;
+
+        synchronized (this)
+        {
+            final List<Maze> list = this.mazes.get(new Key(type, topology, cols, rows));
+
+            maze = (list == null || list.isEmpty()) ? null : list.remove(list.size() - 1);
+        }
+
+        //nothing to reuse, create a new maze
+        if (maze == null)
+            return type.getConstructor(Topology.class, int.class, int.class).newInstance(topology, cols, rows);
+
+        //start the maze over
+        maze.reset();
+
+        return type.cast(maze);
+    }
+
+    /**
+     * Return a maze to the pool so it can be reused.<br>
+     * If we already have enough mazes of the same kind, or the pool can't create mazes of the same kind, the maze will be disposed
+     * @param maze The maze we no longer need
+     * @return true if the maze was added to the pool, false if it was disposed
+     */
+    public synchronized boolean release(final Maze maze)
+    {
+        //we only pool the kind of maze obtain() creates
+        if (maze.getMask() != null || maze.getLayout() != RoomLayout.RowMajor)
+        {
+            maze.dispose();
+            return false;
+        }
+
+        final Key key = new Key(maze.getClass(), maze.getTopology(), maze.getCols(), maze.getRows());
+
+        List<Maze> list = this.mazes.get(key);
+
+        if (list == null)
+        {
+            list = new ArrayList<>();
+            this.mazes.put(key, list);
+        }
+
+        //we have enough of these
+        if (list.size() >= this.limit)
+        {
+            maze.dispose();
+            return false;
+        }
+
+        list.add(maze);
+        return true;
+    }
+
+    /**
+     * The kind of maze we are pooling
+     */
+    private static class Key
+    {
+        private final Class<?> type;
+        private final Topology topology;
+        private final int cols, rows;
+
+        private Key(final Class<?> type, final Topology topology, final int cols, final int rows)
+        {
+            this.type = type;
+            this.topology = topology;
+            this.cols = cols;
+            this.rows = rows;
+        }
+
+        @Override
+        public boolean equals(final Object object)
+        {
+            if (!(object instanceof Key))
+                return false;
+
+            final Key key = (Key)object;
+
+            return (type == key.type && topology == key.topology && cols == key.cols && rows == key.rows);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return ((((type.hashCode() * 31) + topology.hashCode()) * 31 + cols) * 31) + rows;
+        }
+    }
+}
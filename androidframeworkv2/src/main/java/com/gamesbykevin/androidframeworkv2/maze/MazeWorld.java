@@ -0,0 +1,404 @@
+package com.gamesbykevin.androidframeworkv2.maze;
+
+import com.gamesbykevin.androidframeworkv2.base.Disposable;
+import com.gamesbykevin.androidframeworkv2.maze.Room.Wall;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * An endless maze made of fixed size chunks that are generated when they are needed.<br>
+ * Each chunk is a maze created by one of the algorithms, generated from the world seed and the chunk location,
+ * so a chunk is always the same no matter when or how often it is generated.<br>
+ * Every chunk has exactly one door to each of the 4 chunks around it, so every room in the world can be reached
+ * as long as the algorithm creates a perfect maze.<br>
+ * Only the most recently used chunks are kept, the mazes of the other chunks are reused for new chunks so memory stays flat
+ * @author GOD
+ */
+public class MazeWorld implements Disposable
+{
+    /**
+     * The default amount of memory the chunks can use (16MB)
+     */
+    public static final long DEFAULT_BUDGET = 16L * 1024 * 1024;
+
+    //salt used so the door and chunk seeds are different
+    private static final int SALT_CHUNK = 0, SALT_EAST = 1, SALT_SOUTH = 2;
+
+    //the algorithm used to generate each chunk
+    private final Class<? extends Maze> type;
+
+    //the shape of each room
+    private final Topology topology;
+
+    //the size of each chunk
+    private final int chunkCols, chunkRows;
+
+    //the seed of the world
+    private final long seed;
+
+    //the number of bytes each chunk uses, measured from the first maze we create
+    private final long chunkBytes;
+
+    //the number of chunks we keep
+    private final int limit;
+
+    //a maze created before it is needed to measure the chunk size, null once it is used
+    private Maze spare;
+
+    //the chunks we have generated, ordered from least to most recently used
+    private LinkedHashMap<Long, Maze> chunks;
+
+    /**
+     * Create a world using the default memory budget
+     * @param type The algorithm used to generate each chunk, it needs a constructor with the parameters (Topology, int, int)
+     * @param topology The shape of each room in the world
+     * @param chunkCols The number of columns in each chunk
+     * @param chunkRows The number of rows in each chunk
+     * @param seed The seed of the world
+     * @throws Exception If the chunk size is not valid
+     */
+    public MazeWorld(final Class<? extends Maze> type, final Topology topology, final int chunkCols, final int chunkRows, final long seed) throws Exception
+    {
+        this(type, topology, chunkCols, chunkRows, seed, DEFAULT_BUDGET);
+    }
+
+    /**
+     * Create a world
+     * @param type The algorithm used to generate each chunk, it needs a constructor with the parameters (Topology, int, int)
+     * @param topology The shape of each room in the world
+     * @param chunkCols The number of columns in each chunk
+     * @param chunkRows The number of rows in each chunk
+     * @param seed The seed of the world
+     * @param budget The number of bytes the chunks we keep can use as reported by {@link Maze#getBytes()}, at least 1 chunk is always kept
+     * @throws Exception If the chunk size is not valid, or the maze could not be created
+     */
+    public MazeWorld(final Class<? extends Maze> type, final Topology topology, final int chunkCols, final int chunkRows, final long seed, final long budget) throws Exception
+    {
+        if (chunkCols < 2)
+            throw new Exception("Each chunk must contain at least 2 columns");
+        if (chunkRows < 2)
+            throw new Exception("Each chunk must contain at least 2 rows");
+
+        //every chunk starts on an even row, so the shifted hexagon rows line up across chunks
+        if (topology.isHexagon() && chunkRows % 2 != 0)
+            throw new Exception("Each chunk must contain an even number of rows for hexagon rooms");
+
+        this.type = type;
+        this.topology = topology;
+        this.chunkCols = chunkCols;
+        this.chunkRows = chunkRows;
+        this.seed = seed;
+
+        //create the first maze now, so we know how much memory each chunk uses including what the algorithm needs to generate
+        this.spare = createMaze();
+        this.chunkBytes = this.spare.getBytes();
+        this.limit = (int)Math.max(1, Math.min(Integer.MAX_VALUE, budget / getChunkBytes()));
+
+        //access order, so the first chunk is always the least recently used
+        this.chunks = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    @Override
+    public synchronized void dispose()
+    {
+        for (Maze maze : this.chunks.values())
+        {
+            maze.dispose();
+        }
+
+        this.chunks.clear();
+
+        if (this.spare != null)
+        {
+            this.spare.dispose();
+            this.spare = null;
+        }
+    }
+
+    /**
+     * Get the number of bytes each chunk uses
+     * @return The estimated size of one chunk from {@link Maze#getBytes()}, the rooms, neighbor table and the arrays the algorithm uses
+     */
+    public long getChunkBytes()
+    {
+        return this.chunkBytes;
+    }
+
+    /**
+     * Get the topology
+     * @return The shape of each room in the world
+     */
+    public Topology getTopology()
+    {
+        return this.topology;
+    }
+
+    /**
+     * Get the chunk columns
+     * @return The number of columns in each chunk
+     */
+    public int getChunkCols()
+    {
+        return this.chunkCols;
+    }
+
+    /**
+     * Get the chunk rows
+     * @return The number of rows in each chunk
+     */
+    public int getChunkRows()
+    {
+        return this.chunkRows;
+    }
+
+    /**
+     * Get the seed
+     * @return The seed of the world
+     */
+    public long getSeed()
+    {
+        return this.seed;
+    }
+
+    /**
+     * Get the limit
+     * @return The number of chunks we keep in memory
+     */
+    public int getLimit()
+    {
+        return this.limit;
+    }
+
+    /**
+     * Get the number of chunks in memory
+     * @return The number of chunks we are keeping
+     */
+    public synchronized int getChunkCount()
+    {
+        return this.chunks.size();
+    }
+
+    /**
+     * Get the chunk, the chunk will be generated if we don't have it.<br>
+     * The maze of a chunk is reused for another chunk when it is evicted, so the maze returned
+     * (and any room taken from it) is only valid until the next call that generates a chunk.
+     * Use {@link #getRoom(long, long)} or {@link #hasWall(long, long, Wall)} to read a room that stays valid
+     * @param chunkCol The column of the chunk
+     * @param chunkRow The row of the chunk
+     * @return The generated maze of the chunk
+     * @throws Exception If the maze could not be created
+     */
+    public synchronized Maze getChunk(final int chunkCol, final int chunkRow) throws Exception
+    {
+        final Long key = getKey(chunkCol, chunkRow);
+
+        Maze maze = this.chunks.get(key);
+
+        //we already have the chunk
+        if (maze != null)
+            return maze;
+
+        if (this.chunks.size() >= getLimit())
+        {
+            //reuse the maze of the least recently used chunk
+            final Iterator<Map.Entry<Long, Maze>> iterator = this.chunks.entrySet().iterator();
+            maze = iterator.next().getValue();
+            iterator.remove();
+            maze.reset();
+        }
+        else if (this.spare != null)
+        {
+            //use the maze we created to measure the chunk size
+            maze = this.spare;
+            this.spare = null;
+        }
+        else
+        {
+            maze = createMaze();
+        }
+
+        //generate the chunk the same way every time
+        final Random random = new Random(hash(chunkCol, chunkRow, SALT_CHUNK));
+
+        while (!maze.isGenerated())
+        {
+            maze.update(random);
+        }
+
+        //open the door to each chunk around this one
+        createDoors(maze, chunkCol, chunkRow);
+
+        this.chunks.put(key, maze);
+
+        return maze;
+    }
+
+    /**
+     * Create a new maze for a chunk
+     * @return The maze, ready to be generated
+     * @throws Exception If the maze could not be created
+     */
+    private Maze createMaze() throws Exception
+    {
+        return this.type.getConstructor(Topology.class, int.class, int.class).newInstance(getTopology(), getChunkCols(), getChunkRows());
+    }
+
+    /**
+     * Get the room.<br>
+     * The room is a copy, so it stays the same when the chunk is evicted and changing it doesn't change the world
+     * @param col The column in the world
+     * @param row The row in the world
+     * @return A copy of the room in the chunk containing the location, the column and row of the room are in the chunk
+     * @throws Exception If the chunk could not be generated
+     */
+    public synchronized Room getRoom(final long col, final long row) throws Exception
+    {
+        final int chunkCol = getChunk(col, getChunkCols());
+        final int chunkRow = getChunk(row, getChunkRows());
+        final int localCol = (int)(col - ((long)chunkCol * getChunkCols()));
+        final int localRow = (int)(row - ((long)chunkRow * getChunkRows()));
+
+        final Maze maze = getChunk(chunkCol, chunkRow);
+        final int index = maze.getIndex(localCol, localRow);
+
+        //copy the state of the room
+        final Room room = new Room(localCol, localRow);
+        room.getStorage().setWalls(0, maze.getStorage().getWalls(index));
+        room.setCost(maze.getStorage().getCost(index));
+        room.setVisited(maze.getStorage().hasVisited(index));
+
+        return room;
+    }
+
+    /**
+     * Does the room have the wall?
+     * @param col The column in the world
+     * @param row The row in the world
+     * @param wall The wall we want to check
+     * @return true if the wall exists
+     * @throws Exception If the chunk could not be generated
+     */
+    public synchronized boolean hasWall(final long col, final long row, final Wall wall) throws Exception
+    {
+        //the shape of room doesn't have the wall
+        if (!getTopology().hasWall(wall))
+            return true;
+
+        final int chunkCol = getChunk(col, getChunkCols());
+        final int chunkRow = getChunk(row, getChunkRows());
+
+        final Maze maze = getChunk(chunkCol, chunkRow);
+
+        return maze.getStorage().hasWall(maze.getIndex((int)(col - ((long)chunkCol * getChunkCols())), (int)(row - ((long)chunkRow * getChunkRows()))), wall);
+    }
+
+    /**
+     * Get the chunks in memory, each maze is only valid until it is evicted the same as {@link #getChunk(int, int)}
+     * @return List of the mazes we are keeping, from least to most recently used
+     */
+    public synchronized List<Maze> getChunks()
+    {
+        return new ArrayList<>(this.chunks.values());
+    }
+
+    /**
+     * Open the doors of the chunk.<br>
+     * The door between 2 chunks is picked using the location of the chunk to the west or north,
+     * so both chunks open the same door
+     * @param maze The generated maze of the chunk
+     * @param chunkCol The column of the chunk
+     * @param chunkRow The row of the chunk
+     */
+    private void createDoors(final Maze maze, final int chunkCol, final int chunkRow)
+    {
+        final RoomStorage storage = maze.getStorage();
+
+        //the rows of the doors to the east and west
+        final int east = getDoor(chunkCol, chunkRow, SALT_EAST, getChunkRows());
+        final int west = getDoor(chunkCol - 1, chunkRow, SALT_EAST, getChunkRows());
+
+        storage.removeWall(maze.getIndex(getChunkCols() - 1, east), Wall.East);
+        storage.removeWall(maze.getIndex(0, west), Wall.West);
+
+        //the columns of the doors to the south and north
+        final int south = getDoor(chunkCol, chunkRow, SALT_SOUTH, getChunkCols());
+        final int north = getDoor(chunkCol, chunkRow - 1, SALT_SOUTH, getChunkCols());
+
+        //the wall leading to the room in the same column of the next chunk
+        final Wall wall = getSouth();
+
+        storage.removeWall(maze.getIndex(south, getChunkRows() - 1), wall);
+        storage.removeWall(maze.getIndex(north, 0), getTopology().getOpposite(wall));
+    }
+
+    /**
+     * Get the wall leading south to the room in the same column
+     * @return The wall of a room on the last row of a chunk
+     */
+    private Wall getSouth()
+    {
+        if (!getTopology().isHexagon())
+            return Wall.South;
+
+        //the last row of a chunk is always odd for hexagons
+        return (getTopology().getColOffset(Wall.SouthEast, getChunkRows() - 1) == 0) ? Wall.SouthEast : Wall.SouthWest;
+    }
+
+    /**
+     * Get the location of a door
+     * @param chunkCol The column of the chunk
+     * @param chunkRow The row of the chunk
+     * @param salt Is the door to the east or south
+     * @param size The number of rooms on the side of the chunk
+     * @return The column or row of the door
+     */
+    private int getDoor(final int chunkCol, final int chunkRow, final int salt, final int size)
+    {
+        return (int)((hash(chunkCol, chunkRow, salt) >>> 1) % size);
+    }
+
+    /**
+     * Mix the world seed with the location of a chunk
+     * @param chunkCol The column of the chunk
+     * @param chunkRow The row of the chunk
+     * @param salt Value used so different things in the same chunk get a different result
+     * @return A well mixed 64 bit value
+     */
+    private long hash(final int chunkCol, final int chunkRow, final int salt)
+    {
+        long value = getSeed() ^ (getKey(chunkCol, chunkRow) * 0x9E3779B97F4A7C15L) ^ ((long)salt << 56);
+
+        //the splitmix64 finalizer
+        value = (value ^ (value >>> 30)) * 0xBF58476D1CE4E5B9L;
+        value = (value ^ (value >>> 27)) * 0x94D049BB133111EBL;
+
+        return value ^ (value >>> 31);
+    }
+
+    /**
+     * Get the key of a chunk
+     * @param chunkCol The column of the chunk
+     * @param chunkRow The row of the chunk
+     * @return Unique value for the chunk location
+     */
+    private static long getKey(final int chunkCol, final int chunkRow)
+    {
+        return (((long)chunkCol) << 32) | (chunkRow & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Get the chunk containing a location, rounding down for negative locations
+     * @param location The column or row in the world
+     * @param size The number of columns or rows in a chunk
+     * @return The column or row of the chunk
+     */
+    private static int getChunk(final long location, final int size)
+    {
+        return (int)((location >= 0) ? (location / size) : ((location + 1) / size) - 1);
+    }
+}
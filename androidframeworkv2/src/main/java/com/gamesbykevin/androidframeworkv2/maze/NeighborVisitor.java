@@ -0,0 +1,16 @@
+package com.gamesbykevin.androidframeworkv2.maze;
+
+/**
+ * Callback used to visit the neighbors of a room by index
+ * @author GOD
+ */
+public interface NeighborVisitor
+{
+    /**
+     * Visit a neighbor
+     * @param index The index of the room we are checking
+     * @param neighbor The index of the neighbor room
+     * @param direction The wall of the room leading to the neighbor
+     */
+    public void visit(final int index, final int neighbor, final Room.Wall direction);
+}
@@ -4,23 +4,24 @@ import com.gamesbykevin.androidframeworkv2.base.Disposable;
 
 import java.util.ArrayList;
 import java.util.List;
-
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
- * A single room in a maze
+ * A single room in a maze.<br>
+ * The room is a lightweight view, the state of the room is kept in the {@link RoomStorage} of the maze
  * @author GOD
  */
 public class Room implements Disposable
 {
-    //have we visited this room
-    private boolean visited = false;
-    
-    //assign a unique object to identify the room
-    private UUID id;
+    //where the state of this room is stored
+    private RoomStorage storage;
+
+    //the index of this room in the storage
+    private final int index;
 
-    //all wall possibilities depending on the shape
-    private static List<Wall> allWalls;
+    //the next set id for a room created on its own, so each one starts in a different set
+    private static final AtomicInteger NEXT_ID = new AtomicInteger();
 
     /**
      * All of the possible walls in a room
@@ -33,9 +34,17 @@ public class Room implements Disposable
         //offset coordinates
         private final int col, row;
 
+        //the bit representing this wall in a room's wall mask
+        private final int bit;
+
         private Wall(int col, int row) {
             this.col = col;
             this.row = row;
+            this.bit = (1 << ordinal());
+        }
+
+        public int getBit() {
+            return this.bit;
         }
 
         public int getCol() {
@@ -47,19 +56,11 @@ public class Room implements Disposable
         }
     }
     
-    /**
-     * List of walls that this room has
-     */
-    private List<Wall> walls;
-    
     /**
      * The lowest cost a room can have
      */
     public static final int COST_MINIMUM = 0;
     
-    //the cost of this room, typically the number of rooms away from the start or finish etc....
-    private int cost = COST_MINIMUM;
-    
     //the location of the room
     private final int col, row;
     
@@ -70,14 +71,44 @@ public class Room implements Disposable
      */
     public Room(final int col, final int row)
     {
+        //a room on its own has storage for a single room
+        this(new RoomStorage(1), 0, col, row);
+
+        //make sure the room has a unique set
+        setId(NEXT_ID.getAndIncrement());
+    }
+
+    /**
+     * Create a view of a room in the storage
+     * @param storage Where the state of the room is stored
+     * @param index The index of the room in the storage
+     * @param col Column
+     * @param row Row
+     */
+    Room(final RoomStorage storage, final int index, final int col, final int row)
+    {
+        this.storage = storage;
+        this.index = index;
         this.col = col;
         this.row = row;
-        
-        //create a random unique identifier
-        setId(UUID.randomUUID());
-        
-        //create a list for our walls
-        this.walls = new ArrayList<>();
+    }
+
+    /**
+     * Get the index
+     * @return The index of this room in the storage
+     */
+    public int getIndex()
+    {
+        return this.index;
+    }
+
+    /**
+     * Get the storage
+     * @return Where the state of this room is stored
+     */
+    RoomStorage getStorage()
+    {
+        return this.storage;
     }
     
     /**
@@ -101,17 +132,28 @@ public class Room implements Disposable
     @Override
     public void dispose()
     {
-        this.walls.clear();
-        this.walls = null;
+        //the state belongs to the storage, we only release our reference
+        this.storage = null;
     }
     
+    /**
+     * Get the set id
+     * @return The identifier of the set this room belongs to
+     */
+    public int getSetId()
+    {
+        return this.storage.getId(this.index);
+    }
+
     /**
      * Get the id
-     * @return The unique identifier generated for this room
+     * @return The identifier of the set this room belongs to, wrapped in a UUID
+     * @deprecated The id is now an int, use {@link #getSetId()} instead
      */
+    @Deprecated
     public UUID getId()
     {
-        return this.id;
+        return new UUID(0L, getSetId());
     }
     
     /**
@@ -121,14 +163,26 @@ public class Room implements Disposable
      */
     public boolean hasId(final Room room)
     {
-        return (hasId(room.getId()));
+        return (hasId(room.getSetId()));
+    }
+
+    /**
+     * Does this room have the id?
+     * @param id The set id we want to check
+     * @return true if the values are equal, false otherwise
+     */
+    public boolean hasId(final int id)
+    {
+        return (getSetId() == id);
     }
     
     /**
      * Does this room have the id?
      * @param id The unique identifier we want to check
      * @return true if the values are equal, false otherwise
+     * @deprecated The id is now an int, use {@link #hasId(int)} instead
      */
+    @Deprecated
     public boolean hasId(final UUID id)
     {
         return (getId().equals(id));
@@ -140,16 +194,28 @@ public class Room implements Disposable
      */
     public final void setId(final Room room)
     {
-        setId(room.getId());
+        setId(room.getSetId());
     }
-    
+
     /**
      * Assign the id
+     * @param id The set id we want to assign
+     */
+    public final void setId(final int id)
+    {
+        this.storage.setId(this.index, id);
+    }
+    
+    /**
+     * Assign the id.<br>
+     * Only a UUID obtained from {@link #getId()} keeps its value, any other UUID is reduced to an int
      * @param id The unique identifier we want to assign
+     * @deprecated The id is now an int, use {@link #setId(int)} instead
      */
+    @Deprecated
     public final void setId(final UUID id)
     {
-        this.id = id;
+        setId((int)id.getLeastSignificantBits());
     }
     
     /**
@@ -159,15 +225,7 @@ public class Room implements Disposable
      */
     public boolean addWall(final Wall wall)
     {
-        //if we already have it, it will not be added
-        if (hasWall(wall))
-            return false;
-        
-        //add the wall to the list
-        getWalls().add(wall);
-        
-        //wall was successfully added
-        return true;
+        return this.storage.addWall(this.index, wall);
     }
     
     /**
@@ -177,20 +235,7 @@ public class Room implements Disposable
      */
     public boolean hasWall(final Wall wall)
     {
-        //we can't have the wall if our list is empty
-        if (walls.isEmpty())
-            return false;
-        
-        //check each wall in our list
-        for (int index = 0; index < getWalls().size(); index++)
-        {
-            //if we have the wall return true
-            if (getWalls().get(index) == wall)
-                return true;
-        }
-        
-        //we did not find the wall return false
-        return false;
+        return this.storage.hasWall(this.index, wall);
     }
 
     /**
@@ -200,10 +245,8 @@ public class Room implements Disposable
      */
     public void addAllWalls(boolean hexagon)
     {
-        //add all possible walls
-        for (int i = 0; i < getAllWalls(hexagon).size(); i++) {
-            addWall(getAllWalls(hexagon).get(i));
-        }
+        //add all possible walls at once
+        this.storage.setWalls(this.index, this.storage.getWalls(this.index) | Topology.get(hexagon).getWallMask());
     }
     
     /**
@@ -211,7 +254,7 @@ public class Room implements Disposable
      */
     public void removeAllWalls()
     {
-        getWalls().clear();
+        this.storage.setWalls(this.index, 0);
     }
     
     /**
@@ -221,77 +264,50 @@ public class Room implements Disposable
      */
     public boolean removeWall(final Wall wall)
     {
-        //check all the existing walls in our list
-        for (int index = 0; index < getWalls().size(); index++)
-        {
-            //if the walls match
-            if (getWalls().get(index) == wall)
-            {
-                //remove the wall
-                getWalls().remove(index);
-                
-                //a wall was removed return true;
-                return true;
-            }
-        }
-        
-        //no walls were removed
-        return false;
+        return this.storage.removeWall(this.index, wall);
     }
     
     /**
-     * Get the walls
-     * @return The list of walls in this room
+     * Get the walls.<br>
+     * The walls are read once through {@link RoomStorage#readWalls(int)}, so this can be called while the maze is being generated
+     * @return A new list containing the walls in this room, changes to the list do not affect the room
      */
     public List<Wall> getWalls()
     {
-        return this.walls;
+        List<Wall> walls = new ArrayList<>();
+
+        //read every wall at the same moment
+        final int bits = this.storage.readWalls(this.index);
+
+        //add every wall that has its bit set
+        for (Wall wall : Wall.values())
+        {
+            if ((bits & wall.getBit()) != 0)
+                walls.add(wall);
+        }
+
+        return walls;
     }
 
     /**
-     * Get the list of all the possible walls for a given room shape/
+     * Get the list of all the possible walls for a given room shape
      * @param hexagon Is the room a hexagon shape?
-     * @return List of walls in each room
+     * @return Read only list of walls in each room
      */
     public static List<Wall> getAllWalls(final boolean hexagon) {
-        return getAllWalls(hexagon, false);
+        return Topology.get(hexagon).getWalls();
     }
 
     /**
-     * Get the list of all the possible walls for a given room shape/
+     * Get the list of all the possible walls for a given room shape
      * @param hexagon Is the room a hexagon shape?
-     * @param clear Do we clear the cached list and re-populate it?
-     * @return List of walls in each room
+     * @param clear No longer used, the list is never cached
+     * @return Read only list of walls in each room
+     * @deprecated Use {@link Topology#getWalls()} instead
      */
+    @Deprecated
     public static List<Wall> getAllWalls(final boolean hexagon, final boolean clear) {
-
-        if (allWalls == null)
-            allWalls = new ArrayList<>();
-
-        //do we clear the cached list?
-        if (clear)
-            allWalls.clear();
-
-        if (allWalls.isEmpty()) {
-            if (hexagon) {
-                //hexagon has 6 walls
-                allWalls.add(Wall.NorthWest);
-                allWalls.add(Wall.NorthEast);
-                allWalls.add(Wall.SouthWest);
-                allWalls.add(Wall.SouthEast);
-                allWalls.add(Wall.West);
-                allWalls.add(Wall.East);
-            } else {
-                //square has 4 walls
-                allWalls.add(Wall.North);
-                allWalls.add(Wall.South);
-                allWalls.add(Wall.West);
-                allWalls.add(Wall.East);
-            }
-        }
-
-        //return our list
-        return allWalls;
+        return getAllWalls(hexagon);
     }
 
     /**
@@ -300,7 +316,7 @@ public class Room implements Disposable
      */
     public void setCost(final int cost)
     {
-        this.cost = cost;
+        this.storage.setCost(this.index, cost);
     }
     
     /**
@@ -309,7 +325,7 @@ public class Room implements Disposable
      */
     public int getCost()
     {
-        return this.cost;
+        return this.storage.getCost(this.index);
     }
     
     /**
@@ -318,7 +334,7 @@ public class Room implements Disposable
      */
     public void setVisited(final boolean visited)
     {
-        this.visited = visited;
+        this.storage.setVisited(this.index, visited);
     }
     
     /**
@@ -327,7 +343,7 @@ public class Room implements Disposable
      */
     public boolean hasVisited()
     {
-        return this.visited;
+        return this.storage.hasVisited(this.index);
     }
     
     /**
@@ -350,4 +366,25 @@ public class Room implements Disposable
     {
         return (getCol() == col && getRow() == row);
     }
+
+    @Override
+    public boolean equals(final Object object)
+    {
+        if (this == object)
+            return true;
+
+        if (!(object instanceof Room))
+            return false;
+
+        final Room room = (Room)object;
+
+        //rooms are equal if they are a view of the same room in the same storage
+        return (this.storage == room.storage && this.index == room.index);
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return this.index;
+    }
 }
\ No newline at end of file
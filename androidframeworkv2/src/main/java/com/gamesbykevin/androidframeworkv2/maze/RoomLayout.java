@@ -0,0 +1,237 @@
+package com.gamesbykevin.androidframeworkv2.maze;
+
+/**
+ * The order rooms are placed in the {@link RoomStorage} of a maze.<br>
+ * Every layout maps each (column, row) to a unique index from 0 to (cols * rows) - 1, so no storage is wasted.<br>
+ * The curve layouts split the maze into square tiles, rooms close to each other in a tile are also close in memory
+ * @author GOD
+ */
+public enum RoomLayout
+{
+    /**
+     * Rooms are stored one row after another
+     */
+    RowMajor,
+
+    /**
+     * Rooms in each tile are stored in Z-order (Morton order)
+     */
+    ZOrder,
+
+    /**
+     * Rooms in each tile are stored along a Hilbert curve
+     */
+    Hilbert;
+
+    /**
+     * The number of bits used for the column or row inside a tile
+     */
+    public static final int TILE_BITS = 4;
+
+    /**
+     * The number of columns and rows in a tile
+     */
+    public static final int TILE_SIZE = (1 << TILE_BITS);
+
+    //the curve position of each room in a full tile, indexed by (local row * tile size) + local column
+    private final int[] curve;
+
+    //the (local row * tile size) + local column of each curve position in a full tile
+    private final int[] locations;
+
+    private RoomLayout()
+    {
+        this.curve = new int[TILE_SIZE * TILE_SIZE];
+        this.locations = new int[TILE_SIZE * TILE_SIZE];
+
+        for (int row = 0; row < TILE_SIZE; row++)
+        {
+            for (int col = 0; col < TILE_SIZE; col++)
+            {
+                final int position;
+
+                //the constants aren't assigned while they are being created, so we check the name
+                switch (name())
+                {
+                    case "ZOrder":
+                        position = calculateZOrder(col, row);
+                        break;
+
+                    case "Hilbert":
+                        position = calculateHilbert(col, row);
+                        break;
+
+                    default:
+                        position = (row * TILE_SIZE) + col;
+                        break;
+                }
+
+                this.curve[(row * TILE_SIZE) + col] = position;
+                this.locations[position] = (row * TILE_SIZE) + col;
+            }
+        }
+    }
+
+    /**
+     * Calculate the position on the Z-order curve by interleaving the bits of the column and row
+     * @param col Column inside the tile
+     * @param row Row inside the tile
+     * @return The position on the curve
+     */
+    private static int calculateZOrder(final int col, final int row)
+    {
+        int position = 0;
+
+        for (int bit = 0; bit < TILE_BITS; bit++)
+        {
+            position |= ((col >> bit) & 1) << (bit * 2);
+            position |= ((row >> bit) & 1) << (bit * 2 + 1);
+        }
+
+        return position;
+    }
+
+    /**
+     * Calculate the position on the Hilbert curve
+     * @param col Column inside the tile
+     * @param row Row inside the tile
+     * @return The position on the curve
+     */
+    private static int calculateHilbert(int col, int row)
+    {
+        int position = 0;
+
+        for (int size = TILE_SIZE / 2; size > 0; size /= 2)
+        {
+            final int rx = ((col & size) > 0) ? 1 : 0;
+            final int ry = ((row & size) > 0) ? 1 : 0;
+
+            position += size * size * ((3 * rx) ^ ry);
+
+            //rotate the quadrant so the curve stays connected
+            if (ry == 0)
+            {
+                if (rx == 1)
+                {
+                    col = size - 1 - col;
+                    row = size - 1 - row;
+                }
+
+                final int tmp = col;
+                col = row;
+                row = tmp;
+            }
+        }
+
+        return position;
+    }
+
+    /**
+     * Get the index of a room
+     * @param col Column
+     * @param row Row
+     * @param cols Total columns in the maze
+     * @param rows Total rows in the maze
+     * @return The index of the room in storage
+     */
+    public int getIndex(final int col, final int row, final int cols, final int rows)
+    {
+        if (this == RowMajor)
+            return (row * cols) + col;
+
+        //the tile containing the room
+        final int tileCol = col >> TILE_BITS;
+        final int tileRow = row >> TILE_BITS;
+
+        //the height of the tiles in this row, the last row of tiles may be shorter
+        final int height = Math.min(TILE_SIZE, rows - (tileRow << TILE_BITS));
+
+        //the width of the tile, the last tile in each row may be narrower
+        final int width = Math.min(TILE_SIZE, cols - (tileCol << TILE_BITS));
+
+        //every room in the rows of tiles above and the tiles to the west come first
+        final int start = ((tileRow << TILE_BITS) * cols) + ((tileCol << TILE_BITS) * height);
+
+        //location inside the tile
+        final int localCol = col & (TILE_SIZE - 1);
+        final int localRow = row & (TILE_SIZE - 1);
+
+        //partial tiles are stored one row after another
+        if (width < TILE_SIZE || height < TILE_SIZE)
+            return start + (localRow * width) + localCol;
+
+        return start + this.curve[(localRow << TILE_BITS) + localCol];
+    }
+
+    /**
+     * Get the column of a room
+     * @param index The index of the room in storage
+     * @param cols Total columns in the maze
+     * @param rows Total rows in the maze
+     * @return The column of the room
+     */
+    public int getCol(final int index, final int cols, final int rows)
+    {
+        if (this == RowMajor)
+            return (index % cols);
+
+        return getLocation(index, cols, rows, true);
+    }
+
+    /**
+     * Get the row of a room
+     * @param index The index of the room in storage
+     * @param cols Total columns in the maze
+     * @param rows Total rows in the maze
+     * @return The row of the room
+     */
+    public int getRow(final int index, final int cols, final int rows)
+    {
+        if (this == RowMajor)
+            return (index / cols);
+
+        return getLocation(index, cols, rows, false);
+    }
+
+    /**
+     * Get the location of a room in a tiled layout
+     * @param index The index of the room in storage
+     * @param cols Total columns in the maze
+     * @param rows Total rows in the maze
+     * @param column true if we want the column, false if we want the row
+     * @return The column or row of the room
+     */
+    private int getLocation(final int index, final int cols, final int rows, final boolean column)
+    {
+        //each full row of tiles contains this many rooms
+        final int tileRow = index / (TILE_SIZE * cols);
+
+        //the height of the tiles in this row
+        final int height = Math.min(TILE_SIZE, rows - (tileRow << TILE_BITS));
+
+        //the index inside the row of tiles
+        final int remaining = index - ((tileRow << TILE_BITS) * cols);
+
+        //the tile in the row and its width
+        final int tileCol = remaining / (TILE_SIZE * height);
+        final int width = Math.min(TILE_SIZE, cols - (tileCol << TILE_BITS));
+
+        //the index inside the tile
+        final int local = remaining - ((tileCol << TILE_BITS) * height);
+
+        final int localCol, localRow;
+
+        if (width < TILE_SIZE || height < TILE_SIZE)
+        {
+            localCol = local % width;
+            localRow = local / width;
+        }
+        else
+        {
+            localCol = this.locations[local] & (TILE_SIZE - 1);
+            localRow = this.locations[local] >> TILE_BITS;
+        }
+
+        return (column) ? (tileCol << TILE_BITS) + localCol : (tileRow << TILE_BITS) + localRow;
+    }
+}
@@ -0,0 +1,158 @@
+package com.gamesbykevin.androidframeworkv2.maze;
+
+/**
+ * The shape of a maze that isn't a rectangle.<br>
+ * Each (column, row) of the bounding rectangle is either active or not, only the active rooms are stored in the maze.<br>
+ * The active rooms are given a dense index from 0 to {@link #getSize()} - 1, in the order of each row from top to bottom.<br>
+ * The mask only needs 1.5 bits for each location in the rectangle plus 4 bytes for each active room
+ * @author GOD
+ */
+public class RoomMask
+{
+    //the size of the bounding rectangle
+    private final int cols, rows;
+
+    //one bit for each location in the rectangle, set if the room is active
+    private final long[] words;
+
+    //the number of active rooms before each word
+    private final int[] ranks;
+
+    //the location (row * cols + col) of each active room
+    private final int[] locations;
+
+    /**
+     * Create a mask
+     * @param active Is each room active, indexed by [row][col] the same as {@link Maze#getRooms()}
+     * @throws Exception If the mask is empty, or the rows are not the same length
+     */
+    public RoomMask(final boolean[][] active) throws Exception
+    {
+        if (active.length < 1 || active[0].length < 1)
+            throw new Exception("The mask needs at least 1 row and column");
+        if ((long)active.length * active[0].length > Integer.MAX_VALUE)
+            throw new Exception("The mask is too large");
+
+        this.rows = active.length;
+        this.cols = active[0].length;
+        this.words = new long[(int)(((long)cols * rows + 63) / 64)];
+        this.ranks = new int[words.length];
+
+        int count = 0;
+
+        for (int row = 0; row < rows; row++)
+        {
+            if (active[row].length != cols)
+                throw new Exception("Every row of the mask needs " + cols + " columns");
+
+            for (int col = 0; col < cols; col++)
+            {
+                if (!active[row][col])
+                    continue;
+
+                final int location = (row * cols) + col;
+
+                this.words[location >>> 6] |= (1L << (location & 63));
+
+                count++;
+            }
+        }
+
+        this.locations = new int[count];
+
+        //count the active rooms before each word, and store the location of each active room
+        int index = 0;
+
+        for (int word = 0; word < words.length; word++)
+        {
+            this.ranks[word] = index;
+
+            long bits = this.words[word];
+
+            while (bits != 0)
+            {
+                this.locations[index++] = (word << 6) + Long.numberOfTrailingZeros(bits);
+
+                //remove the lowest bit
+                bits &= (bits - 1);
+            }
+        }
+    }
+
+    /**
+     * Get the columns
+     * @return The number of columns in the bounding rectangle
+     */
+    public int getCols()
+    {
+        return this.cols;
+    }
+
+    /**
+     * Get the rows
+     * @return The number of rows in the bounding rectangle
+     */
+    public int getRows()
+    {
+        return this.rows;
+    }
+
+    /**
+     * Get the size
+     * @return The number of active rooms
+     */
+    public int getSize()
+    {
+        return this.locations.length;
+    }
+
+    /**
+     * Is the room active?
+     * @param col Column
+     * @param row Row
+     * @return true if the location is in the rectangle and the room is active, false otherwise
+     */
+    public boolean isActive(final int col, final int row)
+    {
+        if (col < 0 || col >= getCols() || row < 0 || row >= getRows())
+            return false;
+
+        final int location = (row * getCols()) + col;
+
+        return ((this.words[location >>> 6] & (1L << (location & 63))) != 0);
+    }
+
+    /**
+     * Get the index of an active room
+     * @param col Column
+     * @param row Row
+     * @return The index of the room, the result is only valid if the room is active
+     */
+    public int getIndex(final int col, final int row)
+    {
+        final int location = (row * getCols()) + col;
+
+        //the active rooms before this word, plus the active rooms before this location in the word
+        return this.ranks[location >>> 6] + Long.bitCount(this.words[location >>> 6] & ((1L << (location & 63)) - 1));
+    }
+
+    /**
+     * Get the column of a room
+     * @param index The index of the active room
+     * @return The column of the room
+     */
+    public int getCol(final int index)
+    {
+        return (this.locations[index] % getCols());
+    }
+
+    /**
+     * Get the row of a room
+     * @param index The index of the active room
+     * @return The row of the room
+     */
+    public int getRow(final int index)
+    {
+        return (this.locations[index] / getCols());
+    }
+}
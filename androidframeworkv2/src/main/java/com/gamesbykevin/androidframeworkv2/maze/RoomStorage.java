@@ -0,0 +1,450 @@
+package com.gamesbykevin.androidframeworkv2.maze;
+
+import com.gamesbykevin.androidframeworkv2.base.Disposable;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Packed storage for the state of every room in a maze.<br>
+ * Instead of an object per room, each room is addressed by an index and its state is kept in primitive arrays.<br>
+ * The walls of a room are stored as a bit mask, where each bit is the {@link Room.Wall#getBit()} of a wall.<br>
+ * The walls are changed by a single generating thread, other threads can get a consistent copy with {@link #copyWalls(byte[])}.
+ * Every change to the walls is made inside a write section that updates the version, readers copy the walls
+ * and retry when the version changed while they were copying, so the generating thread never waits on a lock
+ * @author GOD
+ */
+public class RoomStorage implements Disposable
+{
+    /**
+     * The number of bytes each room uses (walls, visited, cost and set)
+     */
+    public static final int BYTES_PER_ROOM = 1 + 1 + 4 + 4;
+
+    //the number of failed copies before a reader asks the generating thread to wait
+    private static final int COPY_ATTEMPTS = 4;
+
+    //the walls of each room, one bit per wall
+    private byte[] walls;
+
+    //the version of the walls, the version is odd while the walls are being changed
+    private final AtomicInteger version = new AtomicInteger();
+
+    //the number of readers that want the generating thread to wait before changing the walls
+    private final AtomicInteger waiting = new AtomicInteger();
+
+    //the number of write sections the generating thread has open
+    private int depth = 0;
+
+    //the record of every wall change, null if changes aren't recorded
+    private WallJournal journal;
+
+    //has each room been visited
+    private boolean[] visited;
+
+    //the number of rooms that have been visited
+    private int visitedCount = 0;
+
+    //the cost of each room
+    private int[] costs;
+
+    //the set each room belongs to
+    private int[] ids;
+
+    /**
+     * Create storage for the specified number of rooms.<br>
+     * Every room starts with no walls, not visited, the minimum cost and in its own set
+     * @param size The total number of rooms
+     */
+    public RoomStorage(final int size)
+    {
+        this.walls = new byte[size];
+        this.visited = new boolean[size];
+        this.costs = new int[size];
+        this.ids = new int[size];
+
+        //every room starts in its own set, identified by the room index
+        for (int index = 0; index < size; index++)
+        {
+            this.ids[index] = index;
+        }
+    }
+
+    @Override
+    public void dispose()
+    {
+        this.walls = null;
+        this.journal = null;
+        this.visited = null;
+        this.costs = null;
+        this.ids = null;
+    }
+
+    /**
+     * Reset every room back to the state of a new storage.<br>
+     * No walls, not visited, the minimum cost and in its own set
+     */
+    public void reset()
+    {
+        fillWalls(0);
+        setVisitedAll(false);
+        Arrays.fill(this.costs, Room.COST_MINIMUM);
+
+        //every room is back in its own set
+        for (int index = 0; index < this.ids.length; index++)
+        {
+            this.ids[index] = index;
+        }
+    }
+
+    /**
+     * Get the size
+     * @return The total number of rooms in this storage
+     */
+    public int getSize()
+    {
+        return this.walls.length;
+    }
+
+    /**
+     * Copy the walls, this can be called from any thread
+     * @return A new array containing the walls of every room
+     */
+    public byte[] copyWalls()
+    {
+        final byte[] copy = new byte[getSize()];
+
+        copyWalls(copy);
+
+        return copy;
+    }
+
+    /**
+     * Copy the walls of every room as they were at a single moment, this can be called from any thread.<br>
+     * The copy is retried while the generating thread is changing the walls,
+     * after a few failed attempts the generating thread waits before starting its next change
+     * @param destination The array to copy into, it needs at least {@link #getSize()} elements
+     * @return The version of the walls that were copied, which is always even
+     */
+    public int copyWalls(final byte[] destination)
+    {
+        int attempts = 0;
+
+        try
+        {
+            while (true)
+            {
+                final int before = this.version.get();
+
+                if ((before & 1) == 0)
+                {
+                    System.arraycopy(this.walls, 0, destination, 0, this.walls.length);
+
+                    //compare and set is also a write, so the copy can't be moved after it
+                    if (this.version.compareAndSet(before, before))
+                        return before;
+                }
+
+                //we keep missing, make the generating thread wait for us
+                if (++attempts == COPY_ATTEMPTS)
+                    this.waiting.incrementAndGet();
+
+                Thread.yield();
+            }
+        }
+        finally
+        {
+            if (attempts >= COPY_ATTEMPTS)
+                this.waiting.decrementAndGet();
+        }
+    }
+
+    /**
+     * Read the walls of a single room, this can be called from any thread while the maze is being generated.<br>
+     * The walls are read as they were at a single moment, the same as {@link #copyWalls(byte[])}
+     * @param index The index of the room
+     * @return The bit mask of walls the room has
+     */
+    public int readWalls(final int index)
+    {
+        int attempts = 0;
+
+        try
+        {
+            while (true)
+            {
+                final int before = this.version.get();
+
+                if ((before & 1) == 0)
+                {
+                    final int walls = this.walls[index];
+
+                    //compare and set is also a write, so the read can't be moved after it
+                    if (this.version.compareAndSet(before, before))
+                        return walls;
+                }
+
+                //we keep missing, make the generating thread wait for us
+                if (++attempts == COPY_ATTEMPTS)
+                    this.waiting.incrementAndGet();
+
+                Thread.yield();
+            }
+        }
+        finally
+        {
+            if (attempts >= COPY_ATTEMPTS)
+                this.waiting.decrementAndGet();
+        }
+    }
+
+    /**
+     * Get the version of the walls, this can be called from any thread.<br>
+     * The version changes every time the walls change, so a reader can skip copying walls that are the same
+     * @return The current version, odd while the walls are being changed
+     */
+    public int getVersion()
+    {
+        return this.version.get();
+    }
+
+    /**
+     * Start changing the walls.<br>
+     * Readers won't copy the walls until the matching {@link #endWrite()},
+     * sections can be nested so several changes are seen by readers at the same time.
+     * Only the generating thread can change the walls
+     */
+    public void beginWrite()
+    {
+        if (this.depth++ > 0)
+            return;
+
+        //a reader has been waiting, let it finish before we change anything
+        while (this.waiting.get() > 0)
+        {
+            Thread.yield();
+        }
+
+        this.version.incrementAndGet();
+    }
+
+    /**
+     * Finish changing the walls, the changes are published to readers when the outer most section ends
+     */
+    public void endWrite()
+    {
+        if (--this.depth == 0)
+            this.version.incrementAndGet();
+    }
+
+    /**
+     * Assign the journal, this has to be done before the generating thread starts
+     * @param journal The record of every wall change, null to stop recording changes
+     */
+    public void setJournal(final WallJournal journal)
+    {
+        this.journal = journal;
+    }
+
+    /**
+     * Get the journal
+     * @return The record of every wall change, null if changes aren't recorded
+     */
+    public WallJournal getJournal()
+    {
+        return this.journal;
+    }
+
+    /**
+     * Get the walls
+     * @param index The index of the room
+     * @return The bit mask of walls the room has
+     */
+    public int getWalls(final int index)
+    {
+        return this.walls[index];
+    }
+
+    /**
+     * Assign the walls
+     * @param index The index of the room
+     * @param walls The bit mask of walls the room will have
+     */
+    public void setWalls(final int index, final int walls)
+    {
+        beginWrite();
+        this.walls[index] = (byte)walls;
+        endWrite();
+
+        if (this.journal != null)
+            this.journal.record(index);
+    }
+
+    /**
+     * Assign the same walls to every room
+     * @param walls The bit mask of walls each room will have
+     */
+    public void fillWalls(final int walls)
+    {
+        beginWrite();
+        Arrays.fill(this.walls, (byte)walls);
+        endWrite();
+
+        if (this.journal != null)
+            this.journal.invalidate();
+    }
+
+    /**
+     * Do we have the wall?
+     * @param index The index of the room
+     * @param wall The wall we want to check
+     * @return true if the wall exists, false otherwise
+     */
+    public boolean hasWall(final int index, final Room.Wall wall)
+    {
+        return ((this.walls[index] & wall.getBit()) != 0);
+    }
+
+    /**
+     * Add the wall to the room
+     * @param index The index of the room
+     * @param wall The wall we want to add
+     * @return true if the wall was added, false if the room already had the wall
+     */
+    public boolean addWall(final int index, final Room.Wall wall)
+    {
+        //if we already have it, it will not be added
+        if (hasWall(index, wall))
+            return false;
+
+        //set the bit
+        beginWrite();
+        this.walls[index] |= wall.getBit();
+        endWrite();
+
+        if (this.journal != null)
+            this.journal.record(index, wall);
+
+        //wall was successfully added
+        return true;
+    }
+
+    /**
+     * Remove the wall from the room
+     * @param index The index of the room
+     * @param wall The wall we want to remove
+     * @return true if the wall was removed, false if the room did not have the wall
+     */
+    public boolean removeWall(final int index, final Room.Wall wall)
+    {
+        //we can't remove a wall we don't have
+        if (!hasWall(index, wall))
+            return false;
+
+        //clear the bit
+        beginWrite();
+        this.walls[index] &= ~wall.getBit();
+        endWrite();
+
+        if (this.journal != null)
+            this.journal.record(index, wall);
+
+        //wall was successfully removed
+        return true;
+    }
+
+    /**
+     * Has the room been visited?
+     * @param index The index of the room
+     * @return true = yes, false = no
+     */
+    public boolean hasVisited(final int index)
+    {
+        return this.visited[index];
+    }
+
+    /**
+     * Assign the room visited
+     * @param index The index of the room
+     * @param visited true = yes, false = no
+     */
+    public void setVisited(final int index, final boolean visited)
+    {
+        //nothing changes if the room already has the value
+        if (this.visited[index] == visited)
+            return;
+
+        this.visited[index] = visited;
+
+        //keep our count up to date
+        if (visited)
+        {
+            this.visitedCount++;
+        }
+        else
+        {
+            this.visitedCount--;
+        }
+    }
+
+    /**
+     * Assign every room visited
+     * @param visited true = yes, false = no
+     */
+    public void setVisitedAll(final boolean visited)
+    {
+        Arrays.fill(this.visited, visited);
+
+        //every room now has the same value
+        this.visitedCount = (visited) ? getSize() : 0;
+    }
+
+    /**
+     * Get the visited count
+     * @return The total number of rooms that have been visited
+     */
+    public int getVisitedCount()
+    {
+        return this.visitedCount;
+    }
+
+    /**
+     * Get the cost
+     * @param index The index of the room
+     * @return The cost of the room
+     */
+    public int getCost(final int index)
+    {
+        return this.costs[index];
+    }
+
+    /**
+     * Assign the cost
+     * @param index The index of the room
+     * @param cost The desired cost of the room
+     */
+    public void setCost(final int index, final int cost)
+    {
+        this.costs[index] = cost;
+    }
+
+    /**
+     * Get the id
+     * @param index The index of the room
+     * @return The identifier of the set the room belongs to
+     */
+    public int getId(final int index)
+    {
+        return this.ids[index];
+    }
+
+    /**
+     * Assign the id
+     * @param index The index of the room
+     * @param id The identifier of the set the room will belong to
+     */
+    public void setId(final int index, final int id)
+    {
+        this.ids[index] = id;
+    }
+}
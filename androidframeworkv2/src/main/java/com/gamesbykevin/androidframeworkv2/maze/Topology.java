@@ -0,0 +1,247 @@
+package com.gamesbykevin.androidframeworkv2.maze;
+
+import com.gamesbykevin.androidframeworkv2.maze.Room.Wall;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The shape of every room in a maze.<br>
+ * Each topology is immutable, all of the tables are calculated once so a topology can be shared between threads
+ * @author GOD
+ */
+public enum Topology
+{
+    /**
+     * Square rooms have 4 walls
+     */
+    Square(false, Wall.North, Wall.South, Wall.West, Wall.East),
+
+    /**
+     * Hexagon rooms have 6 walls, every odd row is shifted half a room to the east
+     */
+    Hexagon(true, Wall.NorthWest, Wall.NorthEast, Wall.SouthWest, Wall.SouthEast, Wall.West, Wall.East);
+
+    //is each room a hexagon
+    private final boolean hexagon;
+
+    //the walls in each room
+    private final Wall[] walls;
+
+    //read only list of the walls in each room
+    private final List<Wall> wallList;
+
+    //the bits of every wall combined
+    private final int wallMask;
+
+    //the index of each wall in this topology, indexed by the wall ordinal
+    private final int[] indexes;
+
+    //the opposite of each wall, indexed by the wall ordinal
+    private final Wall[] opposites;
+
+    //the column offset of each wall, indexed by row parity then wall ordinal
+    private final int[][] colOffsets;
+
+    //the row offset of each wall, indexed by the wall ordinal
+    private final int[] rowOffsets;
+
+    private Topology(final boolean hexagon, final Wall... walls)
+    {
+        this.hexagon = hexagon;
+        this.walls = walls;
+        this.wallList = Collections.unmodifiableList(Arrays.asList(walls.clone()));
+        this.indexes = new int[Wall.values().length];
+        this.opposites = new Wall[Wall.values().length];
+        this.colOffsets = new int[2][Wall.values().length];
+        this.rowOffsets = new int[Wall.values().length];
+
+        int mask = 0;
+
+        //walls that aren't part of this topology have no index
+        Arrays.fill(this.indexes, -1);
+
+        for (int index = 0; index < walls.length; index++)
+        {
+            final Wall wall = walls[index];
+
+            mask |= wall.getBit();
+
+            this.indexes[wall.ordinal()] = index;
+
+            //the row offset doesn't depend on the row
+            this.rowOffsets[wall.ordinal()] = wall.getRow();
+
+            //the column offset of each wall on an even and odd row
+            this.colOffsets[0][wall.ordinal()] = calculateColOffset(hexagon, wall, 0);
+            this.colOffsets[1][wall.ordinal()] = calculateColOffset(hexagon, wall, 1);
+        }
+
+        this.wallMask = mask;
+
+        //each pair of opposite walls
+        this.opposites[Wall.North.ordinal()] = Wall.South;
+        this.opposites[Wall.South.ordinal()] = Wall.North;
+        this.opposites[Wall.West.ordinal()] = Wall.East;
+        this.opposites[Wall.East.ordinal()] = Wall.West;
+        this.opposites[Wall.NorthWest.ordinal()] = Wall.SouthEast;
+        this.opposites[Wall.SouthEast.ordinal()] = Wall.NorthWest;
+        this.opposites[Wall.NorthEast.ordinal()] = Wall.SouthWest;
+        this.opposites[Wall.SouthWest.ordinal()] = Wall.NorthEast;
+    }
+
+    /**
+     * Calculate the column offset
+     * @param hexagon Is each room a hexagon?
+     * @param wall The wall leading to the neighbor
+     * @param parity 0 for an even row, 1 for an odd row
+     * @return The number of columns between a room and its neighbor
+     */
+    private static int calculateColOffset(final boolean hexagon, final Wall wall, final int parity)
+    {
+        //only the diagonal hexagon walls depend on the row
+        if (hexagon)
+        {
+            switch (wall)
+            {
+                case NorthWest:
+                case SouthWest:
+                    return (parity == 0) ? -1 : 0;
+
+                case NorthEast:
+                case SouthEast:
+                    return (parity == 0) ? 0 : 1;
+            }
+        }
+
+        return wall.getCol();
+    }
+
+    /**
+     * Get the topology
+     * @param hexagon Is each room a hexagon?
+     * @return The topology for the shape of room
+     */
+    public static Topology get(final boolean hexagon)
+    {
+        return (hexagon) ? Hexagon : Square;
+    }
+
+    /**
+     * Is each room a hexagon?
+     * @return true if every room is shaped like a hexagon, false otherwise
+     */
+    public boolean isHexagon()
+    {
+        return this.hexagon;
+    }
+
+    /**
+     * Get the walls
+     * @return Read only list of every wall in a room
+     */
+    public List<Wall> getWalls()
+    {
+        return this.wallList;
+    }
+
+    /**
+     * Get the wall count
+     * @return The number of walls in a room
+     */
+    public int getWallCount()
+    {
+        return this.walls.length;
+    }
+
+    /**
+     * Get the wall
+     * @param index The index of the wall, from 0 to {@link #getWallCount()} - 1
+     * @return The wall at the index
+     */
+    public Wall getWall(final int index)
+    {
+        return this.walls[index];
+    }
+
+    /**
+     * Get the index of the wall
+     * @param wall The wall we want to find
+     * @return The index of the wall in this topology, -1 if a room doesn't have the wall
+     */
+    public int indexOf(final Wall wall)
+    {
+        return this.indexes[wall.ordinal()];
+    }
+
+    /**
+     * Get the wall mask
+     * @return The bits of every wall in a room combined
+     */
+    public int getWallMask()
+    {
+        return this.wallMask;
+    }
+
+    /**
+     * Does a room have the wall?
+     * @param wall The wall we want to check
+     * @return true if the wall is part of this shape of room, false otherwise
+     */
+    public boolean hasWall(final Wall wall)
+    {
+        return ((this.wallMask & wall.getBit()) != 0);
+    }
+
+    /**
+     * Get the opposite wall
+     * @param wall The wall of a room
+     * @return The wall of the neighbor room on the other side of the specified wall
+     */
+    public Wall getOpposite(final Wall wall)
+    {
+        return this.opposites[wall.ordinal()];
+    }
+
+    /**
+     * Get the direction
+     * @param col Column of the room
+     * @param row Row of the room
+     * @param neighborCol Column of the neighbor room
+     * @param neighborRow Row of the neighbor room
+     * @return The wall of the room leading to the neighbor, null if the rooms are not neighbors
+     */
+    public Wall getDirection(final int col, final int row, final int neighborCol, final int neighborRow)
+    {
+        for (Wall wall : this.walls)
+        {
+            if (col + getColOffset(wall, row) == neighborCol && row + getRowOffset(wall) == neighborRow)
+                return wall;
+        }
+
+        //the rooms are not neighbors
+        return null;
+    }
+
+    /**
+     * Get the column offset
+     * @param wall The wall leading to the neighbor
+     * @param row The row of the room
+     * @return The number of columns between the room and its neighbor
+     */
+    public int getColOffset(final Wall wall, final int row)
+    {
+        return this.colOffsets[row & 1][wall.ordinal()];
+    }
+
+    /**
+     * Get the row offset
+     * @param wall The wall leading to the neighbor
+     * @return The number of rows between the room and its neighbor
+     */
+    public int getRowOffset(final Wall wall)
+    {
+        return this.rowOffsets[wall.ordinal()];
+    }
+}
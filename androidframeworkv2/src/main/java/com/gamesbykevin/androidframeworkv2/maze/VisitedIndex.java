@@ -0,0 +1,169 @@
+package com.gamesbykevin.androidframeworkv2.maze;
+
+import java.util.Arrays;
+
+/**
+ * Spatial index of the visited rooms in a maze, used to find the nearest visited or unvisited room to a location.<br>
+ * The maze is split into square buckets that count their visited rooms, a search checks the buckets in rings
+ * around the location and only looks at the rooms of a bucket that can contain a match,
+ * so it doesn't have to check every room in the maze.<br>
+ * The index doesn't watch the storage, the algorithm has to call {@link #add(int)} every time a room is visited
+ * @author GOD
+ */
+public class VisitedIndex
+{
+    //the size of each bucket is (1 << SHIFT) rooms in each direction
+    private static final int SHIFT = 3;
+
+    //the number of rooms on each side of a bucket
+    private static final int SIZE = 1 << SHIFT;
+
+    //the maze we are indexing
+    private final Maze maze;
+
+    //the number of buckets in each direction
+    private final int bucketCols, bucketRows;
+
+    //the number of rooms in each bucket that are part of the maze
+    private final int[] totals;
+
+    //the number of visited rooms in each bucket
+    private final int[] counts;
+
+    /**
+     * Create the index, every room that is visited in the maze is added
+     * @param maze The maze we are indexing
+     */
+    public VisitedIndex(final Maze maze)
+    {
+        this.maze = maze;
+        this.bucketCols = (maze.getCols() + SIZE - 1) >> SHIFT;
+        this.bucketRows = (maze.getRows() + SIZE - 1) >> SHIFT;
+        this.totals = new int[bucketCols * bucketRows];
+        this.counts = new int[bucketCols * bucketRows];
+
+        for (int index = 0; index < maze.getSize(); index++)
+        {
+            this.totals[getBucket(maze.getCol(index), maze.getRow(index))]++;
+        }
+
+        reset();
+    }
+
+    /**
+     * Get the bytes
+     * @return The number of bytes the arrays of the index use
+     */
+    public long getBytes()
+    {
+        return 8L * this.counts.length;
+    }
+
+    /**
+     * Count the visited rooms again, call this after the maze is reset
+     */
+    public void reset()
+    {
+        Arrays.fill(this.counts, 0);
+
+        for (int index = 0; index < maze.getSize(); index++)
+        {
+            if (maze.getStorage().hasVisited(index))
+                add(index);
+        }
+    }
+
+    /**
+     * Add a room that was just visited, each room can only be added once
+     * @param index The index of the room
+     */
+    public void add(final int index)
+    {
+        this.counts[getBucket(maze.getCol(index), maze.getRow(index))]++;
+    }
+
+    /**
+     * Find the nearest room, using the straight line distance between the columns and rows
+     * @param col Column of the location
+     * @param row Row of the location
+     * @param visited Are we looking for a visited room, or a room that hasn't been visited
+     * @return The index of the nearest matching room, -1 if there are no matching rooms
+     */
+    public int findNearest(final int col, final int row, final boolean visited)
+    {
+        final int bucketCol = col >> SHIFT;
+        final int bucketRow = row >> SHIFT;
+
+        //the farthest ring that is still inside the maze
+        final int limit = Math.max(Math.max(bucketCol, bucketCols - 1 - bucketCol), Math.max(bucketRow, bucketRows - 1 - bucketRow));
+
+        int nearest = -1;
+        long distance = Long.MAX_VALUE;
+
+        for (int radius = 0; radius <= limit; radius++)
+        {
+            //every room in this ring is at least this far away, stop once we can't find anything closer
+            final long closest = (radius == 0) ? 0 : ((long)(radius - 1) << SHIFT) + 1;
+
+            if (nearest >= 0 && closest * closest > distance)
+                break;
+
+            for (int y = bucketRow - radius; y <= bucketRow + radius; y++)
+            {
+                if (y < 0 || y >= bucketRows)
+                    continue;
+
+                //the top and bottom of the ring are full rows, otherwise only the left and right side
+                final int step = (y == bucketRow - radius || y == bucketRow + radius) ? 1 : Math.max(1, radius * 2);
+
+                for (int x = bucketCol - radius; x <= bucketCol + radius; x += step)
+                {
+                    if (x < 0 || x >= bucketCols)
+                        continue;
+
+                    final int bucket = (y * bucketCols) + x;
+
+                    //skip buckets that can't contain a match
+                    if ((visited) ? (counts[bucket] == 0) : (counts[bucket] == totals[bucket]))
+                        continue;
+
+                    for (int row1 = y << SHIFT; row1 < Math.min((y + 1) << SHIFT, maze.getRows()); row1++)
+                    {
+                        for (int col1 = x << SHIFT; col1 < Math.min((x + 1) << SHIFT, maze.getCols()); col1++)
+                        {
+                            if (!maze.hasBounds(col1, row1))
+                                continue;
+
+                            final int index = maze.getIndex(col1, row1);
+
+                            if (maze.getStorage().hasVisited(index) != visited)
+                                continue;
+
+                            final long tmp = ((long)(col1 - col) * (col1 - col)) + ((long)(row1 - row) * (row1 - row));
+
+                            //if we found a shorter distance
+                            if (tmp < distance)
+                            {
+                                distance = tmp;
+                                nearest = index;
+                            }
+                        }
+                    }
+                }
+            }
+        }
+
+        return nearest;
+    }
+
+    /**
+     * Get the bucket of a location
+     * @param col Column
+     * @param row Row
+     * @return The index of the bucket containing the location
+     */
+    private int getBucket(final int col, final int row)
+    {
+        return ((row >> SHIFT) * bucketCols) + (col >> SHIFT);
+    }
+}
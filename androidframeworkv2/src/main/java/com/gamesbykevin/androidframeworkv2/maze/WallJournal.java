@@ -0,0 +1,204 @@
+package com.gamesbykevin.androidframeworkv2.maze;
+
+import com.gamesbykevin.androidframeworkv2.maze.Room.Wall;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded record of the walls that changed, so a renderer or cache only has to update the rooms that changed.<br>
+ * The generating thread records every change made to the {@link RoomStorage}, one other thread drains the changes.<br>
+ * Changes that haven't been drained are never overwritten, when the journal is full new changes are dropped
+ * and the next drain reports that changes were lost, every room should then be treated as changed
+ * @author GOD
+ */
+public class WallJournal
+{
+    /**
+     * Returned by {@link #drainRooms(int[])} when changes were lost
+     */
+    public static final int LOST = -1;
+
+    //the wall recorded when every wall of the room may have changed
+    private static final byte ALL_WALLS = -1;
+
+    //every wall, indexed by ordinal
+    private static final Wall[] WALLS = Wall.values();
+
+    //the room of each change
+    private final int[] rooms;
+
+    //the ordinal of the wall of each change
+    private final byte[] walls;
+
+    //used to wrap a position to a slot in the journal
+    private final int mask;
+
+    //the position of the next change written, and the next change read
+    private final AtomicLong head = new AtomicLong(), tail = new AtomicLong();
+
+    //the last read position seen by the generating thread, so we don't check the reader every change
+    private long cachedTail = 0;
+
+    //have changes been lost since the last drain
+    private final AtomicBoolean lost = new AtomicBoolean();
+
+    //the rooms already returned by the current drain, one bit per room
+    private final long[] dirty;
+
+    /**
+     * Callback for each change drained from the journal
+     */
+    public interface Visitor
+    {
+        /**
+         * The wall of a room changed
+         * @param index The index of the room
+         * @param wall The wall that changed, null if every wall of the room may have changed
+         */
+        public void changed(final int index, final Wall wall);
+    }
+
+    /**
+     * Create the journal
+     * @param capacity The number of changes kept until they are drained, rounded up to a power of 2
+     * @param size The number of rooms in the maze
+     * @throws Exception If the capacity is not valid
+     */
+    public WallJournal(final int capacity, final int size) throws Exception
+    {
+        if (capacity < 1 || capacity > (1 << 30))
+            throw new Exception("The journal capacity must be between 1 and " + (1 << 30));
+
+        final int length = (capacity == 1) ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+
+        this.rooms = new int[length];
+        this.walls = new byte[length];
+        this.mask = length - 1;
+        this.dirty = new long[(size + 63) >>> 6];
+    }
+
+    /**
+     * Get the capacity
+     * @return The number of changes kept until they are drained
+     */
+    public int getCapacity()
+    {
+        return this.rooms.length;
+    }
+
+    /**
+     * Record a change, this is only called by the generating thread
+     * @param index The index of the room
+     * @param wall The wall that was added or removed
+     */
+    public void record(final int index, final Wall wall)
+    {
+        add(index, (byte)wall.ordinal());
+    }
+
+    /**
+     * Record that every wall of the room may have changed, this is only called by the generating thread
+     * @param index The index of the room
+     */
+    public void record(final int index)
+    {
+        add(index, ALL_WALLS);
+    }
+
+    /**
+     * Record that every room may have changed, the next drain will report changes were lost
+     */
+    public void invalidate()
+    {
+        this.lost.set(true);
+    }
+
+    /**
+     * Add a change to the journal
+     * @param index The index of the room
+     * @param wall The ordinal of the wall
+     */
+    private void add(final int index, final byte wall)
+    {
+        final long position = this.head.get();
+
+        if (position - this.cachedTail >= getCapacity())
+        {
+            this.cachedTail = this.tail.get();
+
+            //the reader is too far behind, drop the change
+            if (position - this.cachedTail >= getCapacity())
+            {
+                this.lost.lazySet(true);
+                return;
+            }
+        }
+
+        final int slot = (int)(position & this.mask);
+        this.rooms[slot] = index;
+        this.walls[slot] = wall;
+
+        //publish the change after it is written
+        this.head.lazySet(position + 1);
+    }
+
+    /**
+     * Drain every change in the order they were made
+     * @param visitor The callback for each change
+     * @return true if every change since the last drain was visited, false if changes were lost
+     */
+    public boolean drain(final Visitor visitor)
+    {
+        final long end = this.head.get();
+
+        for (long position = this.tail.get(); position < end; position++)
+        {
+            final int slot = (int)(position & this.mask);
+
+            visitor.changed(this.rooms[slot], (this.walls[slot] == ALL_WALLS) ? null : WALLS[this.walls[slot]]);
+        }
+
+        //let the generating thread reuse the slots
+        this.tail.lazySet(end);
+
+        return !this.lost.getAndSet(false);
+    }
+
+    /**
+     * Drain every change, and get the rooms that changed.<br>
+     * Each room is only listed once no matter how many of its walls changed
+     * @param destination The array to fill with room indexes, it needs at least {@link #getCapacity()} elements
+     * @return The number of rooms that changed, or {@link #LOST} if changes were lost and every room should be treated as changed
+     */
+    public int drainRooms(final int[] destination)
+    {
+        final long end = this.head.get();
+
+        int count = 0;
+
+        for (long position = this.tail.get(); position < end; position++)
+        {
+            final int index = this.rooms[(int)(position & this.mask)];
+            final long bit = 1L << (index & 63);
+
+            //only add the room the first time we see it
+            if ((this.dirty[index >>> 6] & bit) == 0)
+            {
+                this.dirty[index >>> 6] |= bit;
+                destination[count++] = index;
+            }
+        }
+
+        //let the generating thread reuse the slots
+        this.tail.lazySet(end);
+
+        //clear the rooms we added, so the dirty set is empty for the next drain
+        for (int i = 0; i < count; i++)
+        {
+            this.dirty[destination[i] >>> 6] &= ~(1L << (destination[i] & 63));
+        }
+
+        return (this.lost.getAndSet(false)) ? LOST : count;
+    }
+}
@@ -2,20 +2,25 @@ package com.gamesbykevin.androidframeworkv2.maze.algorithm;
 
 import com.gamesbykevin.androidframeworkv2.maze.Maze;
 import com.gamesbykevin.androidframeworkv2.maze.MazeHelper;
-import com.gamesbykevin.androidframeworkv2.maze.Room;
+import com.gamesbykevin.androidframeworkv2.maze.RoomLayout;
+import com.gamesbykevin.androidframeworkv2.maze.RoomMask;
+import com.gamesbykevin.androidframeworkv2.maze.Topology;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Arrays;
 import java.util.Random;
 
 /**
- * Aldous-Broder maze generation algorithm
+ * Aldous-Broder maze generation algorithm.<br>
+ * The frontier (every unvisited room next to a visited room) is kept up to date as rooms are visited,
+ * so the walk can be moved next to a random frontier room right away.<br>
+ * Once the progress passes {@link #LOCATE_TARGET_PROGRESS_RATIO} the walk is moved as soon as the current room
+ * has no unvisited neighbor, before that it is only moved when the walk fails too many times in a row
  * @author GOD
  */
 public class AldousBroder extends Maze
 {
-    //track current location
-    private int col, row;
+    //the index of our current location
+    private int current;
     
     //keep track of failed count
     private int count = 0;
@@ -32,31 +37,126 @@ public class AldousBroder extends Maze
      */
     private static final float LOCATE_TARGET_PROGRESS_RATIO = .7f;
     
-    //temporary object used to generate maze
-    private List<Room> options;
+    //the walls we can choose from
+    private int[] options;
+
+    //the number of walls we can choose from
+    private int total;
+
+    //the unvisited rooms next to a visited room, the first frontierSize elements are used
+    private int[] frontier;
+
+    //the position of each room in the frontier, -1 if the room isn't in the frontier
+    private int[] positions;
+
+    //the number of rooms in the frontier
+    private int frontierSize;
+
+    //the number of moves we made, and the moves into a room that was already visited
+    private long steps, wasted;
 
     public AldousBroder(final boolean hexagon, final int cols, final int rows) throws Exception {
+        this(Topology.get(hexagon), cols, rows);
+    }
+
+    public AldousBroder(final Topology topology, final int cols, final int rows) throws Exception {
+        this(topology, RoomLayout.RowMajor, cols, rows);
+    }
+
+    public AldousBroder(final Topology topology, final RoomLayout layout, final int cols, final int rows) throws Exception {
+
+        super(topology, layout, cols, rows);
+        
+        //add walls to each room
+        super.populateRooms();
+        
+        //the limit will be determined by the size of the maze
+        this.failedAttemptsLimit = (getSize() / 2);
+        
+        //create the arrays used to walk
+        createWalk();
+    }
+
+    public AldousBroder(final Topology topology, final RoomMask mask) throws Exception {
 
-        super(hexagon, cols, rows);
+        super(topology, mask);
         
         //add walls to each room
         super.populateRooms();
         
         //the limit will be determined by the size of the maze
-        this.failedAttemptsLimit = ((cols * rows) / 2);
+        this.failedAttemptsLimit = (getSize() / 2);
         
-        //create new list(s)
-        this.options = new ArrayList<>();
+        //create the arrays used to walk
+        createWalk();
     }
     
     @Override
     public void dispose() {
         super.dispose();
-        
-        options.clear();
+
         options = null;
+        frontier = null;
+        positions = null;
     }
     
+    @Override
+    public void reset() {
+        super.reset();
+
+        //reset the failed count
+        count = 0;
+
+        //no rooms are visited
+        resetWalk();
+    }
+
+    /**
+     * Get the bytes, including the frontier and the position of each room in it
+     * @return The estimated number of bytes the arrays of this maze use
+     */
+    @Override
+    public long getBytes() {
+        return super.getBytes() + (8L * getSize()) + (4L * getTopology().getWallCount());
+    }
+
+    /**
+     * Get the steps
+     * @return The number of moves the walk has made
+     */
+    public long getSteps() {
+        return this.steps;
+    }
+
+    /**
+     * Get the wasted steps
+     * @return The number of moves into a room that was already visited
+     */
+    public long getWastedSteps() {
+        return this.wasted;
+    }
+
+    /**
+     * Create the arrays used to walk
+     */
+    private void createWalk() {
+        this.options = new int[getTopology().getWallCount()];
+        this.frontier = new int[getSize()];
+        this.positions = new int[getSize()];
+
+        resetWalk();
+    }
+
+    /**
+     * Empty the frontier and the step counters
+     */
+    private void resetWalk() {
+        Arrays.fill(this.positions, -1);
+        this.frontierSize = 0;
+        this.steps = 0;
+        this.wasted = 0;
+    }
+
     /**
      * Create our maze
      * @param random Object used to make random decisions
@@ -70,15 +170,17 @@ public class AldousBroder extends Maze
         
         //if we haven't visited any rooms, this is the first time pick a random location
         if (!MazeHelper.hasVisited(this)) {
-            col = random.nextInt(getCols());
-            row = random.nextInt(getRows());
+            current = getRandomIndex(random);
+            visit(current);
         }
-        
-        //our temporary room
-        Room room = getRoom(col, row);
 
-        //make sure the list is empty
-        options.clear();
+        //count the move
+        steps++;
+
+        total = 0;
+
+        //are we close to finishing the maze
+        final boolean locate = (getProgress().getProgress() >= LOCATE_TARGET_PROGRESS_RATIO);
 
         /**
          * If we are close to finishing the maze...
@@ -86,57 +188,56 @@ public class AldousBroder extends Maze
          *
          * Lets target any existing unvisited rooms, to help complete the maze
          */
-        if (getProgress().getProgress() >= LOCATE_TARGET_PROGRESS_RATIO || count > failedAttemptsLimit) {
-
-            //check all walls
-            for (Room.Wall wall : Room.getAllWalls(isHexagon())) {
-
-                //get the neighbor
-                Room tmp = getRoomNeighbor(room, wall);
+        if (locate || count > failedAttemptsLimit) {
+            findUnvisited();
 
-                if (tmp != null && !tmp.hasVisited())
-                    options.add(tmp);
+            //close to finishing, don't wander over the maze, move next to the frontier right away
+            if (total == 0 && locate && frontierSize > 0) {
+                placeAtNeighbor(random);
+                findUnvisited();
             }
         }
 
         //if we still don't have any options
-        if (options.isEmpty())
+        if (total == 0)
         {
             //increase the count
             count++;
 
             //check all walls
-            for (Room.Wall wall : Room.getAllWalls(isHexagon())) {
-
-                Room tmp = getRoomNeighbor(col, row, wall);
-
-                if (tmp != null)
-                    options.add(tmp);
+            for (int i = 0; i < getTopology().getWallCount(); i++) {
+                if (getNeighbor(current, i) >= 0)
+                    options[total++] = i;
             }
         }
         
-        //now pick a random room
-        Room tmp = options.get(random.nextInt(options.size()));
-        
-        //assign the new location
-        col = tmp.getCol();
-        row = tmp.getRow();
+        //now pick a random direction
+        final int wall = options[random.nextInt(total)];
+        final int neighbor = getNeighbor(current, wall);
         
         //if the room has not yet been visited we will join
-        if (!tmp.hasVisited())
+        if (!getStorage().hasVisited(neighbor))
         {
             //reset the counter since we found an unvisited room
             count = 0;
             
-            //mark the rooms as visited
-            room.setVisited(true);
-            tmp.setVisited(true);
-            
             //join the rooms
-            MazeHelper.joinRooms(isHexagon(), room, tmp);
+            carve(current, getTopology().getWall(wall));
+
+            //mark the room as visited
+            visit(neighbor);
+
+            //assign the new location
+            current = neighbor;
         }
         else
         {
+            //we moved without adding a room
+            wasted++;
+
+            //assign the new location
+            current = neighbor;
+
             //if we reached the limit of failed attempts
             if (count > failedAttemptsLimit)
             {
@@ -148,42 +249,71 @@ public class AldousBroder extends Maze
         //update the maze progress
         updateProgress();
     }
+
+    /**
+     * Add every wall of the current room leading to an unvisited room to our options
+     */
+    private void findUnvisited() {
+        total = 0;
+
+        //check all walls
+        for (int i = 0; i < getTopology().getWallCount(); i++) {
+            final int neighbor = getNeighbor(current, i);
+
+            if (neighbor >= 0 && !getStorage().hasVisited(neighbor))
+                options[total++] = i;
+        }
+    }
+
+    /**
+     * Mark the room visited, and update the frontier
+     * @param index The index of the room we are visiting
+     */
+    private void visit(final int index) {
+        getStorage().setVisited(index, true);
+
+        //the room is part of the maze, so it is no longer in the frontier
+        if (positions[index] >= 0) {
+            final int last = frontier[--frontierSize];
+            frontier[positions[index]] = last;
+            positions[last] = positions[index];
+            positions[index] = -1;
+        }
+
+        //every unvisited neighbor is now next to the maze
+        for (int i = 0; i < getTopology().getWallCount(); i++) {
+            final int neighbor = getNeighbor(index, i);
+
+            if (neighbor >= 0 && !getStorage().hasVisited(neighbor) && positions[neighbor] < 0) {
+                positions[neighbor] = frontierSize;
+                frontier[frontierSize++] = neighbor;
+            }
+        }
+    }
     
     /**
-     * Put our location at a room next to an unvisited room
+     * Put our location at a visited room next to a random frontier room
+     * @param random Object used to make random decisions
      */
     private void placeAtNeighbor(final Random random)
     {
-        //remove any existing objects
-        options.clear();
-        
-        //check all rooms
-        for (int col1 = 0; col1 < getCols(); col1++)
-        {
-            for (int row1 = 0; row1 < getRows(); row1++)
-            {
-                //if this room has not been visited
-                if (!getRoom(col1, row1).hasVisited())
-                {
-                    //check all walls
-                    for (Room.Wall wall : Room.getAllWalls(isHexagon())) {
-                        Room tmp = getRoomNeighbor(col, row, wall);
-
-                        if (tmp != null && tmp.hasVisited())
-                            options.add(tmp);
-                    }
-                }
-            }
+        if (frontierSize == 0)
+            return;
+
+        //pick a random room in the frontier
+        final int index = frontier[random.nextInt(frontierSize)];
+
+        total = 0;
+
+        //every frontier room has at least 1 visited neighbor
+        for (int i = 0; i < getTopology().getWallCount(); i++) {
+            final int neighbor = getNeighbor(index, i);
+
+            if (neighbor >= 0 && getStorage().hasVisited(neighbor))
+                options[total++] = neighbor;
         }
-        
-        //pick random room
-        final Room room = options.get(random.nextInt(options.size()));
-        
+
         //set our new location
-        col = room.getCol();
-        row = room.getRow();
-        
-        //remove any existing objects
-        options.clear();
+        current = options[random.nextInt(total)];
     }
-}
\ No newline at end of file
+}
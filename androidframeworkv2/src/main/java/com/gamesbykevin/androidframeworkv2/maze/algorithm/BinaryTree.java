@@ -1,8 +1,9 @@
 package com.gamesbykevin.androidframeworkv2.maze.algorithm;
 
 import com.gamesbykevin.androidframeworkv2.maze.Maze;
-import com.gamesbykevin.androidframeworkv2.maze.MazeHelper;
 import com.gamesbykevin.androidframeworkv2.maze.Room;
+import com.gamesbykevin.androidframeworkv2.maze.RoomLayout;
+import com.gamesbykevin.androidframeworkv2.maze.Topology;
 
 import java.util.Random;
 
@@ -29,7 +30,17 @@ public class BinaryTree extends Maze
     
     public BinaryTree(final boolean hexagon, final int cols, final int rows) throws Exception
     {
-        super(hexagon, cols, rows);
+        this(Topology.get(hexagon), cols, rows);
+    }
+
+    public BinaryTree(final Topology topology, final int cols, final int rows) throws Exception
+    {
+        this(topology, RoomLayout.RowMajor, cols, rows);
+    }
+
+    public BinaryTree(final Topology topology, final RoomLayout layout, final int cols, final int rows) throws Exception
+    {
+        super(topology, layout, cols, rows);
         
         //fill all walls
         super.populateRooms();
@@ -41,6 +52,19 @@ public class BinaryTree extends Maze
         super.dispose();
     }
     
+    @Override
+    public void reset()
+    {
+        super.reset();
+
+        //start back at the beginning
+        col = 0;
+        row = 0;
+
+        //pick a new direction next time
+        direction = null;
+    }
+
     /**
      * Create our maze
      * @param random Object used to make random decisions
@@ -56,65 +80,52 @@ public class BinaryTree extends Maze
         if (direction == null)
             direction = Directions.values()[random.nextInt(Directions.values().length)];
 
-        //our optional rooms to create passages
-        final Room room1;
-        final Room room2;
+        //our optional directions to create passages
+        final Room.Wall wall1;
+        final Room.Wall wall2;
 
-        //get our 2 rooms to choose between
+        //get our 2 directions to choose between
         switch (direction)
         {
             case NW:
-                if (isHexagon()) {
-                    room1 = getRoomNeighbor(col, row, Room.Wall.West);
-                    room2 = getRoomNeighbor(col, row, Room.Wall.NorthWest);
-                } else {
-                    room1 = getRoomNeighbor(col, row, Room.Wall.West);
-                    room2 = getRoomNeighbor(col, row, Room.Wall.North);
-                }
+                wall1 = Room.Wall.West;
+                wall2 = (isHexagon()) ? Room.Wall.NorthWest : Room.Wall.North;
                 break;
                 
             case NE:
-                if (isHexagon()) {
-                    room1 = getRoomNeighbor(col, row, Room.Wall.East);
-                    room2 = getRoomNeighbor(col, row, Room.Wall.NorthEast);
-                } else {
-                    room1 = getRoomNeighbor(col, row, Room.Wall.East);
-                    room2 = getRoomNeighbor(col, row, Room.Wall.North);
-                }
+                wall1 = Room.Wall.East;
+                wall2 = (isHexagon()) ? Room.Wall.NorthEast : Room.Wall.North;
                 break;
                 
             case SW:
-                if (isHexagon()) {
-                    room1 = getRoomNeighbor(col, row, Room.Wall.West);
-                    room2 = getRoomNeighbor(col, row, Room.Wall.SouthWest);
-                } else {
-                    room1 = getRoomNeighbor(col, row, Room.Wall.West);
-                    room2 = getRoomNeighbor(col, row, Room.Wall.South);
-                }
+                wall1 = Room.Wall.West;
+                wall2 = (isHexagon()) ? Room.Wall.SouthWest : Room.Wall.South;
                 break;
                 
             case SE:
-                if (isHexagon()) {
-                    room1 = getRoomNeighbor(col, row, Room.Wall.East);
-                    room2 = getRoomNeighbor(col, row, Room.Wall.SouthEast);
-                } else {
-                    room1 = getRoomNeighbor(col, row, Room.Wall.East);
-                    room2 = getRoomNeighbor(col, row, Room.Wall.South);
-                }
+                wall1 = Room.Wall.East;
+                wall2 = (isHexagon()) ? Room.Wall.SouthEast : Room.Wall.South;
                 break;
                 
             default:
                 throw new Exception("Direction is not handled here " + direction.toString());
         }
 
+        //the current room
+        final int index = getIndex(col, row);
+
+        //our optional rooms to create passages
+        final int room1 = getNeighbor(index, wall1);
+        final int room2 = getNeighbor(index, wall2);
+
         //check our rooms to see what we can do
-        if (room1 != null && room2 == null) {
-            MazeHelper.joinRooms(isHexagon(), getRoom(col, row), room1);
-        } else if (room1 == null && room2 != null) {
-            MazeHelper.joinRooms(isHexagon(), getRoom(col, row), room2);
-        } else if (room1 != null && room2 != null) {
+        if (room1 >= 0 && room2 < 0) {
+            carve(index, wall1);
+        } else if (room1 < 0 && room2 >= 0) {
+            carve(index, wall2);
+        } else if (room1 >= 0 && room2 >= 0) {
             //if both rooms exist, pick one at random
-            MazeHelper.joinRooms(isHexagon(), getRoom(col, row), random.nextBoolean() ? room1 : room2);
+            carve(index, random.nextBoolean() ? wall1 : wall2);
         }
 
         //move to the next column
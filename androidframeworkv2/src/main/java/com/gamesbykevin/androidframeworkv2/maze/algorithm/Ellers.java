@@ -1,28 +1,77 @@
 package com.gamesbykevin.androidframeworkv2.maze.algorithm;
 
 import com.gamesbykevin.androidframeworkv2.maze.Maze;
-import com.gamesbykevin.androidframeworkv2.maze.MazeHelper;
-import com.gamesbykevin.androidframeworkv2.maze.Room;
+import com.gamesbykevin.androidframeworkv2.maze.Room.Wall;
+import com.gamesbykevin.androidframeworkv2.maze.RoomLayout;
+import com.gamesbykevin.androidframeworkv2.maze.Topology;
 
 import java.util.Random;
 
 /**
- * Ellers maze generation algorithm
+ * Ellers maze generation algorithm.<br>
+ * Only the sets of the current row are tracked by {@link RowSets},
+ * so each row takes linear time no matter how wide the maze is
  * @author GOD
  */
 public class Ellers extends Maze
 {
     //our current location
     private int col = 0, row = 0;
+
+    //the sets of the current row
+    private RowSets sets;
     
     public Ellers(final boolean hexagon, final int cols, final int rows) throws Exception
     {
-        super(hexagon, cols, rows);
+        this(Topology.get(hexagon), cols, rows);
+    }
+
+    public Ellers(final Topology topology, final int cols, final int rows) throws Exception
+    {
+        this(topology, RoomLayout.RowMajor, cols, rows);
+    }
+
+    public Ellers(final Topology topology, final RoomLayout layout, final int cols, final int rows) throws Exception
+    {
+        super(topology, layout, cols, rows);
         
         //set the walls for each room
         super.populateRooms();
+
+        //every room in the first row starts in its own set
+        this.sets = new RowSets(cols);
+    }
+
+    @Override
+    public void dispose()
+    {
+        super.dispose();
+
+        sets = null;
     }
     
+    @Override
+    public void reset()
+    {
+        super.reset();
+
+        //start back at the beginning
+        col = 0;
+        row = 0;
+        sets.reset();
+    }
+
+    /**
+     * Get the bytes, including the sets of the current row
+     * @return The estimated number of bytes the arrays of this maze use
+     */
+    @Override
+    public long getBytes()
+    {
+        return super.getBytes() + sets.getBytes();
+    }
+
+
     /**
      * Create our maze
      * @param random Object used to make random decisions
@@ -36,14 +85,10 @@ public class Ellers extends Maze
             return;
         
         //randomly choose to join adjacent cells
-        if (random.nextBoolean())
+        if (col < getCols() - 1 && random.nextBoolean())
         {
-            //if the neighbor location is in bounds
-            if (hasBounds(col + 1, row))
-            {
-                //create the horizontal path
-                createHorizontalPath(getRoom(col, row), getRoom(col + 1, row));
-            }
+            //create the horizontal path
+            createHorizontalPath(col);
         }
 
         //increase the column
@@ -53,7 +98,7 @@ public class Ellers extends Maze
         super.getProgress().increase();
         
         //if we are at the end of the row perform cleanup
-        if (!hasBounds(col, row))
+        if (col >= getCols())
         {
             cleanupRow(random);
             
@@ -69,114 +114,62 @@ public class Ellers extends Maze
      * Perform cleanup on the current row
      * @param random Object used to make random decisions
      */
-    private void cleanupRow(final Random random) throws Exception
+    private void cleanupRow(final Random random)
     {
         //check if we are at the last row
         if (row < getRows() - 1)
         {
-            //reset the column position back to the beginning and make vertical connections
-            for (col = 0; col < getCols(); col++)
-            {
-                //decide at random if we are to create a vertical connection
-                if (random.nextBoolean())
-                {
-                    //create the vertical path
-                    createVerticalPath(getRoom(col, row), random);
-                }
-            }
-
-            //now lets make sure each set in the current row has at least 1 matching set in the row below
-            for (col = 0; col < getCols(); col++)
-            {
-                //if we don't have a matching set below, lets create it now
-                if (!hasSet(getRoom(col, row), row + 1))
-                {
-                    //create the vertical path
-                    createVerticalPath(getRoom(col, row), random);
-                }
-            }
+            createVerticalPaths(random);
         }
         else
         {
             //we are at the last row, any non-matching neighbors will be joined
-            for (col = 0; col < getCols() - 1; col++)
+            for (int column = 0; column < getCols() - 1; column++)
             {
                 //create the path
-                createHorizontalPath(getRoom(col, row), getRoom(col + 1, row));
+                createHorizontalPath(column);
             }
         }
     }
+
     
     /**
-     * Create a horizontal path joining the 2 rooms.<br>
+     * Create a horizontal path joining the room to the room east of it.<br>
      * If the rooms are already part of the same set, nothing will happen here
-     * @param roomWest Room to the west
-     * @param roomEast The neighbor room to the east
+     * @param column The column of the west room in the current row
      */
-    private void createHorizontalPath(final Room roomWest, final Room roomEast) throws Exception
+    private void createHorizontalPath(final int column)
     {
-        //only check if the neighbor is part of a different set
-        if (!roomEast.hasId(roomWest))
+        //only join rooms that are part of a different set
+        if (!sets.isJoined(column))
         {
-            //make the neighbor part of the same set
-            roomEast.setId(roomWest);
-
             //now remove the walls between the neighbors
-            MazeHelper.joinRooms(isHexagon(), roomWest, roomEast);
+            carve(getIndex(column, row), Wall.East);
+
+            //merge the sets
+            sets.join(column);
         }
     }
-    
+
     /**
-     * Create a vertical path joining the north room and a room to the south.<br>
-     * @param roomNorth Room to the north
+     * Create the vertical passages to the next row, each set has at least 1 passage
      * @param random Object used to make random decisions
      */
-    private void createVerticalPath(final Room roomNorth, final Random random) throws Exception
+    private void createVerticalPaths(final Random random)
     {
-        //a room below the current north room
-        Room roomSouth;
-
-        if (isHexagon()) {
+        //the wall leading to the room below in the same column
+        final Wall south = RowSets.getSouth(getTopology(), row);
 
-            Room room1 = getRoomNeighbor(roomNorth, Room.Wall.SouthWest);
-            Room room2 = getRoomNeighbor(roomNorth, Room.Wall.SouthEast);
+        sets.startVertical();
 
-            if (room1 != null && room2 == null) {
-                roomSouth = room1;
-            } else if (room1 == null && room2 != null) {
-                roomSouth = room2;
-            } else {
-                roomSouth = random.nextBoolean() ? room1 : room2;
-            }
-
-        } else {
-
-            roomSouth = getRoom(roomNorth.getCol(), roomNorth.getRow() + 1);
-        }
-
-        //make the neighbor part of the same set
-        roomSouth.setId(roomNorth);
-
-        //now remove the walls between the neighbors
-        MazeHelper.joinRooms(isHexagon(), roomSouth, roomNorth);
-    }
-    
-    /**
-     * Do we have the set?
-     * @param room Room containing the unique set (id)
-     * @param row The row we want to check
-     * @return true if at least 1 room in the specified row has a matching set
-     */
-    private boolean hasSet(final Room room, final int row)
-    {
         for (int column = 0; column < getCols(); column++)
         {
-            //if the set matches, return true
-            if (room.hasId(getRoom(column, row)))
-                return true;
+            //go down at random, every set has to continue
+            if (sets.goDown(column, random.nextBoolean()))
+                carve(getIndex(column, row), south);
         }
-        
-        //no matching set was found
-        return false;
+
+        //the next row becomes the current row
+        sets.finishVertical();
     }
-}
\ No newline at end of file
+}
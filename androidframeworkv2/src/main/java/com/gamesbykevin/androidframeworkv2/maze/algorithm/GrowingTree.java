@@ -1,46 +1,243 @@
 package com.gamesbykevin.androidframeworkv2.maze.algorithm;
 
 import com.gamesbykevin.androidframeworkv2.maze.Maze;
-import com.gamesbykevin.androidframeworkv2.maze.MazeHelper;
-import com.gamesbykevin.androidframeworkv2.maze.Room;
+import com.gamesbykevin.androidframeworkv2.maze.RoomLayout;
+import com.gamesbykevin.androidframeworkv2.maze.RoomMask;
+import com.gamesbykevin.androidframeworkv2.maze.Topology;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Arrays;
 import java.util.Random;
 
 /**
- * Growing Tree maze generation algorithm
+ * Growing Tree maze generation algorithm.<br>
+ * The rooms we can grow from are kept in the order they were added, a {@link Selector} picks which one we grow from next.<br>
+ * Each room is stored in the slot of the order it was added and is never moved, a removed room only clears its slot.<br>
+ * The slots that still have a room are counted in a binary indexed tree, so finding the room at any position
+ * and removing a room both take log(n) time and the order is always kept, no matter which selector is used.<br>
+ * Each step of every selector is O(log n), not constant time, keeping the exact order with constant time removals
+ * from any position isn't possible with a deque
  * @author GOD
  */
 public class GrowingTree extends Maze
 {
-    //temporary list of optional rooms
-    private List<Room> options, tmp;
+    /**
+     * Picks the room we grow from
+     */
+    public interface Selector
+    {
+        /**
+         * Pick a room
+         * @param size The number of rooms we can choose from, at least 1
+         * @param random Object used to make random decisions
+         * @return The position of the room, 0 is the oldest room and size - 1 is the newest room
+         */
+        public int select(final int size, final Random random);
+    }
+
+    /**
+     * Always grow from the newest room, the same as recursive backtracking (long corridors)
+     */
+    public static final Selector NEWEST = new Selector()
+    {
+        @Override
+        public int select(final int size, final Random random)
+        {
+            return size - 1;
+        }
+    };
+
+    /**
+     * Always grow from the oldest room (long straight passages from the start)
+     */
+    public static final Selector OLDEST = new Selector()
+    {
+        @Override
+        public int select(final int size, final Random random)
+        {
+            return 0;
+        }
+    };
+
+    /**
+     * Grow from a random room, the same as Prim's (short dead ends)
+     */
+    public static final Selector RANDOM = new Selector()
+    {
+        @Override
+        public int select(final int size, final Random random)
+        {
+            return random.nextInt(size);
+        }
+    };
+
+    /**
+     * Always grow from the room in the middle
+     */
+    public static final Selector MIDDLE = new Selector()
+    {
+        @Override
+        public int select(final int size, final Random random)
+        {
+            return size / 2;
+        }
+    };
+
+    /**
+     * The default selector, half of the time random and the other half the newest room
+     */
+    public static final Selector DEFAULT = createMix(RANDOM, NEWEST, 0.5f);
+
+    //the room in each slot, in the order the rooms were added
+    private int[] options;
+
+    //binary indexed tree counting the slots that still have a room we can grow from
+    private int[] counts;
+
+    //the number of slots used, and the number of rooms we can grow from
+    private int added, size;
+
+    //the highest power of 2 in the number of slots, used to search the tree
+    private int step;
+
+    //the walls leading to a room that hasn't been visited
+    private int[] choices;
+
+    //picks the room we grow from
+    private Selector selector = DEFAULT;
 
     public GrowingTree(final boolean hexagon, final int cols, final int rows) throws Exception
     {
-        super(hexagon, cols, rows);
+        this(Topology.get(hexagon), cols, rows);
+    }
+
+    public GrowingTree(final Topology topology, final int cols, final int rows) throws Exception
+    {
+        this(topology, RoomLayout.RowMajor, cols, rows);
+    }
+
+    public GrowingTree(final Topology topology, final RoomLayout layout, final int cols, final int rows) throws Exception
+    {
+        super(topology, layout, cols, rows);
+        
+        //fill all walls
+        super.populateRooms();
+        
+        //create the arrays of optional rooms
+        createOptions();
+    }
+
+    public GrowingTree(final Topology topology, final RoomMask mask) throws Exception
+    {
+        super(topology, mask);
         
         //fill all walls
         super.populateRooms();
         
-        //create new lists
-        this.options = new ArrayList<>();
-        this.tmp = new ArrayList<>();
+        //create the arrays of optional rooms
+        createOptions();
     }
     
+    /**
+     * Mix 2 selectors
+     * @param first The selector used the specified amount of the time
+     * @param second The selector used the rest of the time
+     * @param chance The chance (0 - 1) the first selector is used, for example .75 with NEWEST and RANDOM
+     * @return A selector that picks between the 2 selectors each time
+     * @throws Exception If a selector is null, or the chance is not between 0 and 1
+     */
+    public static Selector mix(final Selector first, final Selector second, final float chance) throws Exception
+    {
+        if (first == null || second == null)
+            throw new Exception("The selectors can't be null");
+        if (!(chance >= 0 && chance <= 1))
+            throw new Exception("The chance must be between 0 and 1: " + chance);
+
+        return createMix(first, second, chance);
+    }
+
+    /**
+     * Mix 2 selectors without checking the parameters
+     * @param first The selector used the specified amount of the time
+     * @param second The selector used the rest of the time
+     * @param chance The chance (0 - 1) the first selector is used
+     * @return A selector that picks between the 2 selectors each time
+     */
+    private static Selector createMix(final Selector first, final Selector second, final float chance)
+    {
+        return new Selector()
+        {
+            @Override
+            public int select(final int size, final Random random)
+            {
+                return (random.nextFloat() < chance) ? first.select(size, random) : second.select(size, random);
+            }
+        };
+    }
+
     @Override
     public void dispose()
     {
         super.dispose();
         
-        options.clear();
         options = null;
-        
-        tmp.clear();
-        tmp = null;
+        counts = null;
+        choices = null;
     }
     
+    @Override
+    public void reset()
+    {
+        super.reset();
+
+        //clear our rooms
+        Arrays.fill(counts, 0);
+        added = 0;
+        size = 0;
+    }
+
+    /**
+     * Get the bytes, including the slot of each room and the binary indexed tree
+     * @return The estimated number of bytes the arrays of this maze use
+     */
+    @Override
+    public long getBytes()
+    {
+        return super.getBytes() + (8L * getSize()) + 4 + (4L * getTopology().getWallCount());
+    }
+
+    /**
+     * Assign the selector, this can be changed while we are generating
+     * @param selector Picks the room we grow from
+     * @throws Exception If the selector is null
+     */
+    public void setSelector(final Selector selector) throws Exception
+    {
+        if (selector == null)
+            throw new Exception("The selector can't be null");
+
+        this.selector = selector;
+    }
+
+    /**
+     * Get the selector
+     * @return Picks the room we grow from
+     */
+    public Selector getSelector()
+    {
+        return this.selector;
+    }
+
+    /**
+     * Create the arrays of optional rooms, each room is only added once so every room has its own slot
+     */
+    private void createOptions()
+    {
+        this.options = new int[getSize()];
+        this.counts = new int[getSize() + 1];
+        this.step = Integer.highestOneBit(getSize());
+        this.choices = new int[getTopology().getWallCount()];
+    }
+
     /**
      * Create our maze
      * @param random Object used to make random decisions
@@ -52,69 +249,107 @@ public class GrowingTree extends Maze
         if (isGenerated())
             return;
         
-        if(!MazeHelper.hasVisited(this))
+        if (getStorage().getVisitedCount() == 0)
         {
-            //pick random location
-            final int col = random.nextInt(getCols());
-            final int row = random.nextInt(getRows());
-            
             //add random room to list
-            options.add(getRoom(col, row));
+            add(getRandomIndex(random));
         }
         
-        //random index from our list of cells
-        final int index;
-        
-        /**
-         * Choose at random whether to pick a random index from the list of the newest added
-         */
-        if (random.nextBoolean())
-        {
-            index = random.nextInt(options.size());
-        }
-        else
-        {
-            index = options.size() - 1;
-        }
-        
-        //get that random room
-        final Room room = options.get(index);
+        //pick the position of the room we grow from
+        final int position = selector.select(size, random);
+
+        //get that room
+        final int slot = find(position);
+        final int room = options[slot];
 
-        //clear the list
-        tmp.clear();
+        //the number of walls we can choose from
+        int total = 0;
 
         //check neighbors
-        for (Room.Wall wall : Room.getAllWalls(isHexagon())) {
-            Room roomTmp = getRoomNeighbor(room, wall);
+        for (int i = 0; i < getTopology().getWallCount(); i++) {
+            final int neighbor = getNeighbor(room, i);
 
             //add any rooms that have not been visited to our list
-            if (roomTmp != null && !roomTmp.hasVisited())
-                tmp.add(roomTmp);
+            if (neighbor >= 0 && !getStorage().hasVisited(neighbor))
+                choices[total++] = i;
         }
 
         //if there are no unvisited neighbors
-        if (tmp.isEmpty())
+        if (total == 0)
         {
             //remove it from the list
-            options.remove(index);
+            remove(slot);
         }
         else
         {
-            //pick random room from our list
-            final Room randomRoom = tmp.get(random.nextInt(tmp.size()));
-            
-            //join the rooms
-            MazeHelper.joinRooms(isHexagon(), room, randomRoom);
-            
-            //mark the rooms as visited
-            room.setVisited(true);
-            randomRoom.setVisited(true);
-            
-            //add the random room to the list
-            options.add(randomRoom);
+            //join the rooms, and add the new room to the list
+            add(carve(room, getTopology().getWall(choices[random.nextInt(total)])));
         }
         
         //update the progress
         updateProgress();
     }
-}
\ No newline at end of file
+
+    /**
+     * Visit the room and add it as the newest room
+     * @param index The index of the room
+     */
+    private void add(final int index)
+    {
+        getStorage().setVisited(index, true);
+
+        options[added] = index;
+        count(added, 1);
+        added++;
+        size++;
+    }
+
+    /**
+     * Remove a room by clearing its slot in the tree.<br>
+     * The room stays in its slot, {@link #find(int)} skips cleared slots so the position of each newer room is 1 less
+     * @param slot The slot of the room
+     */
+    private void remove(final int slot)
+    {
+        count(slot, -1);
+        size--;
+    }
+
+    /**
+     * Find the slot of a room
+     * @param position The position of the room, 0 is the oldest room
+     * @return The slot containing the room
+     */
+    private int find(final int position)
+    {
+        //the number of rooms we still have to pass
+        int remaining = position + 1;
+
+        int slot = 0;
+
+        //walk down the tree, skipping every part with fewer rooms than we need
+        for (int bit = step; bit > 0; bit >>= 1)
+        {
+            if (slot + bit < counts.length && counts[slot + bit] < remaining)
+            {
+                slot += bit;
+                remaining -= counts[slot];
+            }
+        }
+
+        return slot;
+    }
+
+    /**
+     * Change the count of a slot
+     * @param slot The slot
+     * @param amount 1 when a room is added, -1 when it is removed
+     */
+    private void count(final int slot, final int amount)
+    {
+        for (int i = slot + 1; i < counts.length; i += (i & -i))
+        {
+            counts[i] += amount;
+        }
+    }
+}
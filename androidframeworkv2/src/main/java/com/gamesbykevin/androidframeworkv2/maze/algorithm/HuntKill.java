@@ -2,36 +2,69 @@ package com.gamesbykevin.androidframeworkv2.maze.algorithm;
 
 import com.gamesbykevin.androidframeworkv2.maze.Maze;
 import com.gamesbykevin.androidframeworkv2.maze.MazeHelper;
-import com.gamesbykevin.androidframeworkv2.maze.Room;
+import com.gamesbykevin.androidframeworkv2.maze.RoomLayout;
+import com.gamesbykevin.androidframeworkv2.maze.RoomMask;
+import com.gamesbykevin.androidframeworkv2.maze.Topology;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Arrays;
 import java.util.Random;
 
 /**
- * Hunt Kill maze generation algorithm
+ * Hunt Kill maze generation algorithm.<br>
+ * The rooms that haven't been visited are kept in a bit set, and the hunt starts at the first group of 64 rooms
+ * that still has an unvisited room, so the hunt skips every room that is already part of the maze
  * @author GOD
  */
 public class HuntKill extends Maze
 {
-    //current location
-    private int currentCol, currentRow;
+    //the index of our current location
+    private int current;
     
-    //temporary list of optional rooms
-    private List<Room> options;
+    //the index of each neighbor room we can choose from
+    private int[] options;
+
+    //the number of neighbor rooms we can choose from
+    private int total;
+
+    //one bit for each room that hasn't been visited
+    private long[] unvisited;
+
+    //the first word of the bit set that still has an unvisited room
+    private int cursor;
     
     //have we hit a dead end
     private boolean deadend = false;
 
     public HuntKill(final boolean hexagon, final int cols, final int rows) throws Exception
     {
-        super(hexagon, cols, rows);
+        this(Topology.get(hexagon), cols, rows);
+    }
+
+    public HuntKill(final Topology topology, final int cols, final int rows) throws Exception
+    {
+        this(topology, RoomLayout.RowMajor, cols, rows);
+    }
+
+    public HuntKill(final Topology topology, final RoomLayout layout, final int cols, final int rows) throws Exception
+    {
+        super(topology, layout, cols, rows);
         
         //fill all walls
         super.populateRooms();
         
-        //create a new list
-        this.options = new ArrayList<>();
+        //create the arrays used to hunt
+        createHunt();
+    }
+
+    public HuntKill(final Topology topology, final RoomMask mask) throws Exception
+    {
+        super(topology, mask);
+        
+        //fill all walls
+        super.populateRooms();
+        
+        //create the arrays used to hunt
+        createHunt();
     }
     
     @Override
@@ -39,10 +72,68 @@ public class HuntKill extends Maze
     {
         super.dispose();
         
-        options.clear();
         options = null;
+        unvisited = null;
     }
     
+    @Override
+    public void reset()
+    {
+        super.reset();
+
+        //every room is unvisited again
+        resetHunt();
+
+        //we are not in a dead end
+        deadend = false;
+    }
+
+    /**
+     * Get the bytes, including one bit for each room that hasn't been visited
+     * @return The estimated number of bytes the arrays of this maze use
+     */
+    @Override
+    public long getBytes()
+    {
+        return super.getBytes() + (8L * ((getSize() + 63) >>> 6)) + (4L * getTopology().getWallCount());
+    }
+
+    /**
+     * Create the arrays used to hunt
+     */
+    private void createHunt()
+    {
+        this.options = new int[getTopology().getWallCount()];
+        this.unvisited = new long[(getSize() + 63) >>> 6];
+
+        resetHunt();
+    }
+
+    /**
+     * Mark every room as unvisited
+     */
+    private void resetHunt()
+    {
+        Arrays.fill(this.unvisited, -1L);
+
+        //clear the bits past the last room
+        if ((getSize() & 63) != 0)
+            this.unvisited[this.unvisited.length - 1] = (1L << (getSize() & 63)) - 1;
+
+        this.cursor = 0;
+    }
+
+    /**
+     * Mark the room visited
+     * @param index The index of the room
+     */
+    private void visit(final int index)
+    {
+        getStorage().setVisited(index, true);
+
+        this.unvisited[index >>> 6] &= ~(1L << (index & 63));
+    }
+
     /**
      * Create our maze
      * @param random Object used to make random decisions
@@ -55,58 +146,58 @@ public class HuntKill extends Maze
             return;
         
         //clear list of objects
-        options.clear();
+        total = 0;
                         
         //we are just starting to create the maze
         if (!MazeHelper.hasVisited(this))
         {
             //set the random location
-            currentCol = random.nextInt(getCols());
-            currentRow = random.nextInt(getRows());
+            current = getRandomIndex(random);
             
             //mark this room as visited
-            getRoom(currentCol, currentRow).setVisited(true);
+            visit(current);
         }
         else if (deadend)
         {
-            //start hunting for the next available room in this particular order
-            for (int row = 0; row < getRows(); row++)
+            //the rooms before the cursor are all visited, they never need to be checked again
+            while (cursor < unvisited.length && unvisited[cursor] == 0)
+                cursor++;
+
+            //start hunting for the next available room in the order of our storage
+            for (int word = cursor; word < unvisited.length; word++)
             {
-                for (int col = 0; col < getCols(); col++)
+                long bits = unvisited[word];
+
+                //we are only interested in rooms that haven't been visited
+                while (bits != 0)
                 {
-                    //get the current room
-                    final Room room = getRoom(col, row);
-                    
-                    //we are only interested in rooms that haven't been visited
-                    if (room.hasVisited())
-                        continue;
+                    final int index = (word << 6) + Long.numberOfTrailingZeros(bits);
+
+                    //remove the lowest bit
+                    bits &= (bits - 1);
 
                     //clear the list of objects
-                    options.clear();
+                    total = 0;
 
                     //check all neighbors
-                    for (Room.Wall wall : Room.getAllWalls(isHexagon())) {
-
-                        //get the neighbor room
-                        Room tmp = getRoomNeighbor(col, row, wall);
+                    for (int i = 0; i < getTopology().getWallCount(); i++) {
+                        final int neighbor = getNeighbor(index, i);
 
-                        if (tmp != null && tmp.hasVisited())
-                            options.add(tmp);
+                        if (neighbor >= 0 && getStorage().hasVisited(neighbor))
+                            options[total++] = neighbor;
                     }
 
                     //we only want to join a unvisited room to a visited room
-                    if (!options.isEmpty())
+                    if (total > 0)
                     {
                         //assign new location
-                        this.currentCol = col;
-                        this.currentRow = row;
-                        
+                        this.current = index;
+
                         //join the rooms
                         joinRooms(random);
-                        
+
                         //now re-assign new location
-                        this.currentCol = col;
-                        this.currentRow = row;
+                        this.current = index;
 
                         //no longer in a dead end
                         deadend = false;
@@ -119,18 +210,16 @@ public class HuntKill extends Maze
         }
 
         //check all neighbors
-        for (Room.Wall wall : Room.getAllWalls(isHexagon())) {
-
-            //get the neighbor room
-            Room tmp = getRoomNeighbor(currentCol, currentRow, wall);
+        for (int i = 0; i < getTopology().getWallCount(); i++) {
+            final int neighbor = getNeighbor(current, i);
 
             //if the rooms exist and have not visited, add it to the list
-            if (tmp != null && !tmp.hasVisited())
-                options.add(tmp);
+            if (neighbor >= 0 && !getStorage().hasVisited(neighbor))
+                options[total++] = neighbor;
         }
 
         //if we have options to choose from
-        if (!options.isEmpty())
+        if (total > 0)
         {
             joinRooms(random);
         }
@@ -149,24 +238,37 @@ public class HuntKill extends Maze
      */
     private void joinRooms(final Random random) throws Exception
     {
-        //get the current room
-        Room room = getRoom(currentCol, currentRow);
-
         //get a random neighbor room
-        Room neighbor = options.get(random.nextInt(options.size()));
+        final int neighbor = options[random.nextInt(total)];
 
         //mark both as visited
-        room.setVisited(true);
-        neighbor.setVisited(true);
+        visit(current);
+        visit(neighbor);
 
         //join the rooms to create the path
-        MazeHelper.joinRooms(isHexagon(), room, neighbor);
+        carve(current, getTopology().getWall(getDirection(current, neighbor)));
 
         //now set the new position
-        currentCol = neighbor.getCol();
-        currentRow = neighbor.getRow();
+        current = neighbor;
         
         //update progress
         updateProgress();
     }
-}
\ No newline at end of file
+
+    /**
+     * Get the direction of a neighbor
+     * @param index The index of the room
+     * @param neighbor The index of the neighbor room
+     * @return The index of the wall leading to the neighbor
+     */
+    private int getDirection(final int index, final int neighbor)
+    {
+        for (int i = 0; i < getTopology().getWallCount(); i++)
+        {
+            if (getNeighbor(index, i) == neighbor)
+                return i;
+        }
+
+        return -1;
+    }
+}
@@ -1,273 +1,224 @@
 package com.gamesbykevin.androidframeworkv2.maze.algorithm;
 
 import com.gamesbykevin.androidframeworkv2.maze.Maze;
-import com.gamesbykevin.androidframeworkv2.maze.MazeHelper;
-import com.gamesbykevin.androidframeworkv2.maze.Room;
-import com.gamesbykevin.androidframeworkv2.maze.Room.Wall;
+import com.gamesbykevin.androidframeworkv2.maze.RoomLayout;
+import com.gamesbykevin.androidframeworkv2.maze.RoomMask;
+import com.gamesbykevin.androidframeworkv2.maze.RoomStorage;
+import com.gamesbykevin.androidframeworkv2.maze.Topology;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Arrays;
 import java.util.Random;
-import java.util.UUID;
 
 /**
- * Kruskal's maze generation algorithm
+ * Kruskal's maze generation algorithm.<br>
+ * Every wall between 2 rooms is checked once in random order, the wall is removed if the rooms are not already connected.<br>
+ * The connected rooms are tracked with a disjoint set forest, where the set of each room in the storage is its parent,
+ * so generating the whole maze takes close to linear time
  * @author GOD
  */
 public class Kruskals extends Maze
 {
+    //every wall between 2 rooms, stored as (room index * wall count) + wall
+    private int[] edges;
+
+    //the number of edges we have checked, the edges before this position are shuffled
+    private int position = 0;
+
+    //the rank of each set, used to keep the trees of the forest shallow
+    private byte[] ranks;
+
+    //the number of sets that haven't been joined
+    private int sets;
+
     public Kruskals(final boolean hexagon, final int cols, final int rows) throws Exception
     {
-        super(hexagon, cols, rows);
+        this(Topology.get(hexagon), cols, rows);
+    }
+
+    public Kruskals(final Topology topology, final int cols, final int rows) throws Exception
+    {
+        this(topology, RoomLayout.RowMajor, cols, rows);
+    }
+
+    public Kruskals(final Topology topology, final RoomLayout layout, final int cols, final int rows) throws Exception
+    {
+        super(topology, layout, cols, rows);
         
         //set walls for each room
         super.populateRooms();
+
+        //list every wall we can remove
+        createEdges();
     }
-    
-    /**
-     * Create our maze
-     * @param random Object used to make random decisions
-     * @throws Exception
-     */
-    @Override
-    public void update(final Random random) throws Exception
+
+    public Kruskals(final Topology topology, final RoomMask mask) throws Exception
     {
-        //if generated no need to continue
-        if (isGenerated())
-            return;
-        
-        //get the room with the lowest weight
-        final Room room = getLowestWeight(random);
+        super(topology, mask);
         
-        //create a list of optional directions to randomly choose from
-        List<Room.Wall> directions = new ArrayList<>();
+        //set walls for each room
+        super.populateRooms();
 
-        //check all neighbors
-        for (Wall wall : Room.getAllWalls(isHexagon())) {
+        //list every wall we can remove
+        createEdges();
+    }
+    
+    @Override
+    public void reset()
+    {
+        super.reset();
 
-            //get the neighbor room
-            Room tmp = getRoomNeighbor(room, wall);
+        //put the edges back in their original order, so the same seed creates the same maze
+        fillEdges();
 
-            //if the room exists and is not part of the same set
-            if (tmp != null && !tmp.hasId(room))
-                directions.add(wall);
-        }
+        //every room is back in its own set, the edges will be shuffled again as we check them
+        Arrays.fill(this.ranks, (byte)0);
+        this.position = 0;
+        this.sets = getSize();
+    }
 
-        //now randomly join a neighboring room
-        joinRooms(room, directions.get(random.nextInt(directions.size())));
-        
-        //update the progress
-        super.getProgress().setCount(((getCols() * getRows()) - getUniqueSetCount()) + 1);
+    /**
+     * Get the bytes, including every wall between 2 rooms and the rank of each set
+     * @return The estimated number of bytes the arrays of this maze use
+     */
+    @Override
+    public long getBytes()
+    {
+        return super.getBytes() + (4L * edges.length) + getSize();
     }
-    
+
     /**
-     * Get the unique set count.<br>
-     * As we generate our maze this number will decrease until we reach 1 set
-     * @return The total number of unique sets
+     * Create the list of edges, each wall between 2 rooms is only added once
      */
-    private int getUniqueSetCount()
+    private void createEdges()
     {
-        //our list of unique sets
-        List<UUID> sets = new ArrayList<UUID>();
-        
-        //check all rooms
-        for (int col = 0; col < getCols(); col++)
+        final int count = getTopology().getWallCount();
+
+        int total = 0;
+
+        for (int index = 0; index < getSize(); index++)
         {
-            for (int row = 0; row < getRows(); row++)
+            for (int i = 0; i < count; i++)
             {
-                final Room room = getRoom(col, row);
-                
-                //do we already have a matching set
-                boolean match = false;
-                
-                //check each set to see if we have a match
-                for (int index = 0; index < sets.size(); index++)
-                {
-                    //if we already have this in our list
-                    if (room.hasId(sets.get(index)))
-                    {
-                        //flag match
-                        match = true;
-                        
-                        //no need to check the rest
-                        break;
-                    }
-                }
-                
-                //if we didn't find it, add to the list
-                if (!match)
-                    sets.add(room.getId());
+                if (getNeighbor(index, i) > index)
+                    total++;
             }
         }
-        
-        //return the number of sets that we found
-        return sets.size();
+
+        this.edges = new int[total];
+
+        fillEdges();
+
+        this.ranks = new byte[getSize()];
+        this.sets = getSize();
     }
-    
+
     /**
-     * Get the room with the lowest weight.
-     * @param random Object used to make random decisions
-     * @return The room with the fewest amount of matching sets, if no rooms are available return null
+     * Fill the list of edges in order of the room index, then the wall
      */
-    private Room getLowestWeight(final Random random)
+    private void fillEdges()
     {
-        //the weight to beat
-        int lowestWeight = getCols() * getRows();
-        
-        //the list of the 
-        List<Room> rooms = new ArrayList<Room>();
-        
-        //check all rooms
-        for (int col = 0; col < getCols(); col++)
+        final int count = getTopology().getWallCount();
+
+        int total = 0;
+
+        for (int index = 0; index < getSize(); index++)
         {
-            for (int row = 0; row < getRows(); row++)
+            for (int i = 0; i < count; i++)
             {
-                //get the current room
-                final Room room = getRoom(col, row);
-                
-                //count the total number of sets
-                final int count = getSetCount(room);
-                
-                //if we have a new low weight
-                if (count < lowestWeight)
-                {
-                    //we also want to make sure there are new neighbors we can connect to
-                    if (getNeighborCount(room) > 0)
-                    {
-                        //remove all existing rooms
-                        rooms.clear();
-
-                        //add the new champion
-                        rooms.add(room);
-
-                        //set the new score to beat
-                        lowestWeight = count;
-                    }
-                }
-                else if (count == lowestWeight)
-                {
-                    //we also want to make sure there are new neighbors we can connect to
-                    if (getNeighborCount(room) > 0)
-                    {
-                        //add the new champion
-                        rooms.add(room);
-                    }
-                }
+                if (getNeighbor(index, i) > index)
+                    this.edges[total++] = (index * count) + i;
             }
         }
-        
-        //return a random room from our list
-        return rooms.get(random.nextInt(rooms.size()));
     }
-    
+
     /**
-     * Get the neighbor count
-     * @param room The room containing the set (id) we want to check
-     * @return The total number of neighbors (north, south, east, west) that have a different set (id)
+     * Create our maze, each update removes 1 wall
+     * @param random Object used to make random decisions
+     * @throws Exception
      */
-    private int getNeighborCount(final Room room)
+    @Override
+    public void update(final Random random) throws Exception
     {
-        //keep track of the count
-        int count = 0;
+        //if generated no need to continue
+        if (isGenerated())
+            return;
 
-        //check all neighbors
-        for (Wall wall : Room.getAllWalls(isHexagon())) {
+        final int count = getTopology().getWallCount();
 
-            //get the neighbor
-            Room tmp = getRoomNeighbor(room, wall);
+        while (this.position < this.edges.length)
+        {
+            //pick a random edge we haven't checked, the same as shuffling the edges one at a time
+            final int pick = this.position + random.nextInt(this.edges.length - this.position);
+            final int edge = this.edges[pick];
+            this.edges[pick] = this.edges[this.position];
+            this.edges[this.position++] = edge;
+
+            final int index = edge / count;
+            final int wall = edge % count;
+
+            //skip walls between rooms that are already connected
+            if (!join(index, getNeighbor(index, wall)))
+                continue;
 
-            //if the room exists and is not part of the same set
-            if (tmp != null && !tmp.hasId(room))
-                count++;
+            //remove the wall
+            carve(index, getTopology().getWall(wall));
+
+            //there is 1 less set
+            this.sets--;
+            break;
         }
 
-        return count;
+        //update the progress
+        super.getProgress().setCount((getSize() - this.sets) + 1);
     }
-    
+
     /**
-     * Get the set count
-     * @param room The room containing the set (id) that we want to check
-     * @return The total number of rooms that have the matching set
+     * Find the set of a room
+     * @param index The index of the room
+     * @return The index of the room at the root of the set
      */
-    private int getSetCount(final Room room)
+    private int find(int index)
     {
-        //count the number of matching sets
-        int count = 0;
-        
-        //check all rooms
-        for (int col = 0; col < getCols(); col++)
+        final RoomStorage storage = getStorage();
+
+        while (storage.getId(index) != index)
         {
-            for (int row = 0; row < getRows(); row++)
-            {
-                //if the id's match
-                if (getRoom(col, row).hasId(room))
-                    count++;
-            }
+            //point the room at its grandparent, halving the path every time it is checked
+            final int parent = storage.getId(storage.getId(index));
+            storage.setId(index, parent);
+            index = parent;
         }
-        
-        //return our result
-        return count++;
+
+        return index;
     }
-    
+
     /**
-     * Join rooms
-     * @param room The room we want to join
-     * @param direction The direction of the neighbor we want to join
-     * @throws Exception 
+     * Join the sets of 2 rooms
+     * @param index1 The index of the first room
+     * @param index2 The index of the second room
+     * @return true if the sets were joined, false if the rooms are already in the same set
      */
-    private void joinRooms(final Room room, final Wall direction) throws Exception
+    private boolean join(final int index1, final int index2)
     {
-        //get the neighbor
-        Room neighbor = getRoomNeighbor(room, direction);
+        final int root1 = find(index1);
+        final int root2 = find(index2);
 
-        //join the rooms together removing the walls
-        MazeHelper.joinRooms(isHexagon(), room, neighbor);
+        if (root1 == root2)
+            return false;
 
-        //now update the neighboring rooms that we can access to have the same set
-        joinSets(room);
-    }
-    
-    /**
-     * Assign the rooms we can access with the same set.<br>
-     * Starting at the specified source we will check all neighbors that we can access and assign the room
-     * @param source The room containing the set we want to assign
-     */
-    private void joinSets(final Room source)
-    {
-        //mark all rooms as not visited
-        MazeHelper.setVisitedAll(this, false);
-        
-        //now we want to check all rooms that border the current room and assign the same set
-        List<Room> rooms = new ArrayList<Room>();
-        
-        //add the initial room
-        rooms.add(source);
-        
-        //continue to check while rooms exist
-        while (!rooms.isEmpty())
+        //the shorter tree is added to the taller tree
+        if (this.ranks[root1] < this.ranks[root2])
         {
-            //get the first room
-            final Room tmp = rooms.get(0);
-            
-            //assign the matching id
-            tmp.setId(source);
-            
-            //mark as visited
-            tmp.setVisited(true);
-
-            //check all neighbors
-            for (Wall wall : Room.getAllWalls(isHexagon())) {
-
-                //get the neighbor
-                Room neighbor = getRoomNeighbor(tmp, wall);
-
-                //if there is no wall and the neighboring room has not been visited yet
-                if (!tmp.hasWall(wall) && !neighbor.hasVisited())
-                    rooms.add(neighbor);
-            }
+            getStorage().setId(root1, root2);
+        }
+        else
+        {
+            getStorage().setId(root2, root1);
 
-            //remove room from list
-            rooms.remove(0);
+            if (this.ranks[root1] == this.ranks[root2])
+                this.ranks[root1]++;
         }
+
+        return true;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,147 @@
+package com.gamesbykevin.androidframeworkv2.maze.algorithm;
+
+import com.gamesbykevin.androidframeworkv2.maze.LargeMaze;
+import com.gamesbykevin.androidframeworkv2.maze.Room.Wall;
+import com.gamesbykevin.androidframeworkv2.maze.Topology;
+
+import java.util.Random;
+
+/**
+ * Binary Tree maze generation algorithm for mazes that are too large for the heap.<br>
+ * Each room only looks at itself, so every update creates an entire row
+ * @author GOD
+ */
+public class LargeBinaryTree extends LargeMaze
+{
+    //the current row
+    private int row = 0;
+
+    /**
+     * The different directions we can use to create passages.<br>
+     * We will choose one randomly and use that for the entire maze generation
+     */
+    private enum Directions
+    {
+        NE, NW, SE, SW
+    }
+
+    //the direction we will use
+    private Directions direction;
+
+    //the horizontal wall, and the vertical walls we choose between
+    private Wall horizontal, vertical1, vertical2;
+
+    public LargeBinaryTree(final boolean hexagon, final int cols, final int rows) throws Exception
+    {
+        this(Topology.get(hexagon), cols, rows);
+    }
+
+    public LargeBinaryTree(final Topology topology, final int cols, final int rows) throws Exception
+    {
+        super(topology, cols, rows);
+    }
+
+    @Override
+    public void reset()
+    {
+        super.reset();
+
+        //start back at the beginning
+        row = 0;
+
+        //pick a new direction next time
+        direction = null;
+    }
+
+    /**
+     * Pick the walls we use to create passages
+     * @param random Object used to make random decisions
+     */
+    private void pickDirection(final Random random)
+    {
+        direction = Directions.values()[random.nextInt(Directions.values().length)];
+
+        switch (direction)
+        {
+            case NW:
+                horizontal = Wall.West;
+                vertical1 = (isHexagon()) ? Wall.NorthWest : Wall.North;
+                vertical2 = (isHexagon()) ? Wall.NorthEast : Wall.North;
+                break;
+
+            case NE:
+                horizontal = Wall.East;
+                vertical1 = (isHexagon()) ? Wall.NorthEast : Wall.North;
+                vertical2 = (isHexagon()) ? Wall.NorthWest : Wall.North;
+                break;
+
+            case SW:
+                horizontal = Wall.West;
+                vertical1 = (isHexagon()) ? Wall.SouthWest : Wall.South;
+                vertical2 = (isHexagon()) ? Wall.SouthEast : Wall.South;
+                break;
+
+            case SE:
+            default:
+                horizontal = Wall.East;
+                vertical1 = (isHexagon()) ? Wall.SouthEast : Wall.South;
+                vertical2 = (isHexagon()) ? Wall.SouthWest : Wall.South;
+                break;
+        }
+    }
+
+    /**
+     * Create the next row of our maze
+     * @param random Object used to make random decisions
+     */
+    @Override
+    public void update(final Random random) throws Exception
+    {
+        //if generated no need to continue
+        if (isGenerated())
+            return;
+
+        //if we don't have a direction selected, pick a random direction
+        if (direction == null)
+            pickDirection(random);
+
+        for (int col = 0; col < getCols(); col++)
+        {
+            //use the preferred vertical wall, if the hexagon is on the edge use the other one
+            Wall vertical = vertical1;
+
+            if (!hasNeighbor(col, row, vertical))
+                vertical = vertical2;
+
+            final boolean room1 = hasNeighbor(col, row, horizontal);
+            final boolean room2 = hasNeighbor(col, row, vertical);
+
+            //check our rooms to see what we can do, if both rooms exist pick one at random
+            if (room1 && room2) {
+                carve(col, row, nextBoolean(random) ? horizontal : vertical);
+            } else if (room1) {
+                carve(col, row, horizontal);
+            } else if (room2) {
+                carve(col, row, vertical);
+            }
+        }
+
+        //move to the next row
+        row++;
+
+        //update the progress
+        getProgress().setCount((long)row * getCols());
+    }
+
+    /**
+     * Is there a neighbor room?
+     * @param col Column of the room
+     * @param row Row of the room
+     * @param wall The wall leading to the neighbor
+     * @return true if the neighbor is inside the maze
+     */
+    private boolean hasNeighbor(final int col, final int row, final Wall wall)
+    {
+        return hasBounds(col + getTopology().getColOffset(wall, row), row + getTopology().getRowOffset(wall));
+    }
+}
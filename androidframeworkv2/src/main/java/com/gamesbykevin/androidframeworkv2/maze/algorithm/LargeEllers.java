@@ -0,0 +1,112 @@
+package com.gamesbykevin.androidframeworkv2.maze.algorithm;
+
+import com.gamesbykevin.androidframeworkv2.maze.LargeMaze;
+import com.gamesbykevin.androidframeworkv2.maze.Room.Wall;
+import com.gamesbykevin.androidframeworkv2.maze.Topology;
+
+import java.util.Random;
+
+/**
+ * Ellers maze generation algorithm for mazes that are too large for the heap.<br>
+ * Only the sets of the current row are kept, so the memory used while generating depends on the number of columns.<br>
+ * The sets in a row are tracked by {@link RowSets}, so each row takes linear time.<br>
+ * Every update creates an entire row
+ * @author GOD
+ */
+public class LargeEllers extends LargeMaze
+{
+    //the current row
+    private int row = 0;
+
+    //the sets of the current row
+    private RowSets sets;
+
+    public LargeEllers(final boolean hexagon, final int cols, final int rows) throws Exception
+    {
+        this(Topology.get(hexagon), cols, rows);
+    }
+
+    public LargeEllers(final Topology topology, final int cols, final int rows) throws Exception
+    {
+        super(topology, cols, rows);
+
+        //every room in the first row starts in its own set
+        this.sets = new RowSets(cols);
+    }
+
+    @Override
+    public void dispose()
+    {
+        super.dispose();
+
+        sets = null;
+    }
+
+    @Override
+    public void reset()
+    {
+        super.reset();
+
+        //start back at the beginning
+        row = 0;
+        sets.reset();
+    }
+
+
+
+    /**
+     * Create the next row of our maze
+     * @param random Object used to make random decisions
+     */
+    @Override
+    public void update(final Random random) throws Exception
+    {
+        //if generated no need to continue
+        if (isGenerated())
+            return;
+
+        //the last row has to join every set that is left
+        final boolean last = (row == getRows() - 1);
+
+        //randomly choose to join adjacent rooms of different sets
+        for (int col = 0; col < getCols() - 1; col++)
+        {
+            if (!sets.isJoined(col) && (last || nextBoolean(random)))
+            {
+                carve(col, row, Wall.East);
+                sets.join(col);
+            }
+        }
+
+        if (!last)
+            createVerticalPaths(random);
+
+        //move to the next row
+        row++;
+
+        //update the progress
+        getProgress().setCount((long)row * getCols());
+    }
+
+    /**
+     * Create the vertical passages to the next row, each set has at least 1 passage
+     * @param random Object used to make random decisions
+     */
+    private void createVerticalPaths(final Random random)
+    {
+        //the wall leading to the room below in the same column
+        final Wall south = RowSets.getSouth(getTopology(), row);
+
+        sets.startVertical();
+
+        for (int col = 0; col < getCols(); col++)
+        {
+            //go down at random, every set has to continue
+            if (sets.goDown(col, nextBoolean(random)))
+                carve(col, row, south);
+        }
+
+        //the next row becomes the current row
+        sets.finishVertical();
+    }
+}
@@ -0,0 +1,117 @@
+package com.gamesbykevin.androidframeworkv2.maze.algorithm;
+
+import com.gamesbykevin.androidframeworkv2.maze.LargeMaze;
+import com.gamesbykevin.androidframeworkv2.maze.Room.Wall;
+import com.gamesbykevin.androidframeworkv2.maze.Topology;
+
+import java.util.Random;
+
+/**
+ * Sidewinder maze generation algorithm for mazes that are too large for the heap.<br>
+ * The only state is the first column of the current run, so every update creates an entire row
+ * @author GOD
+ */
+public class LargeSidewinder extends LargeMaze
+{
+    //the current row
+    private int row = 0;
+
+    public LargeSidewinder(final boolean hexagon, final int cols, final int rows) throws Exception
+    {
+        this(Topology.get(hexagon), cols, rows);
+    }
+
+    public LargeSidewinder(final Topology topology, final int cols, final int rows) throws Exception
+    {
+        super(topology, cols, rows);
+    }
+
+    @Override
+    public void reset()
+    {
+        super.reset();
+
+        //start back at the beginning
+        row = 0;
+    }
+
+    /**
+     * Create the next row of our maze
+     * @param random Object used to make random decisions
+     */
+    @Override
+    public void update(final Random random) throws Exception
+    {
+        //if generated no need to continue
+        if (isGenerated())
+            return;
+
+        //the first column of the current run
+        int start = 0;
+
+        for (int col = 0; col < getCols(); col++)
+        {
+            //the first row is always one passage to the east
+            if (row == 0)
+            {
+                if (col < getCols() - 1)
+                    carve(col, row, Wall.East);
+
+                continue;
+            }
+
+            //if chosen at random and not at the end of the row, continue the run to the east
+            if (col < getCols() - 1 && nextBoolean(random))
+            {
+                carve(col, row, Wall.East);
+            }
+            else
+            {
+                //create a passage north from a random room in the run
+                createNorthPassage(start + random.nextInt(col - start + 1), random);
+
+                //start a new run
+                start = col + 1;
+            }
+        }
+
+        //move to the next row
+        row++;
+
+        //update the progress
+        getProgress().setCount((long)row * getCols());
+    }
+
+    /**
+     * Create a passage north
+     * @param col The column of the room in the current row
+     * @param random Object used to make random decisions
+     */
+    private void createNorthPassage(final int col, final Random random)
+    {
+        //the direction to the north
+        final Wall direction;
+
+        //if hexagon we have 2 options for north
+        if (isHexagon()) {
+
+            //2 optional rooms
+            final boolean room1 = hasBounds(col + getTopology().getColOffset(Wall.NorthWest, row), row - 1);
+            final boolean room2 = hasBounds(col + getTopology().getColOffset(Wall.NorthEast, row), row - 1);
+
+            if (room1 && !room2) {
+                direction = Wall.NorthWest;
+            } else if (!room1 && room2) {
+                direction = Wall.NorthEast;
+            } else {
+                direction = nextBoolean(random) ? Wall.NorthWest : Wall.NorthEast;
+            }
+
+        } else {
+            //room directly above to the north
+            direction = Wall.North;
+        }
+
+        carve(col, row, direction);
+    }
+}
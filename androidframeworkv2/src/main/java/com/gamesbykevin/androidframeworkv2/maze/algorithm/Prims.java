@@ -1,31 +1,69 @@
 package com.gamesbykevin.androidframeworkv2.maze.algorithm;
 
 import com.gamesbykevin.androidframeworkv2.maze.Maze;
-import com.gamesbykevin.androidframeworkv2.maze.MazeHelper;
-import com.gamesbykevin.androidframeworkv2.maze.Room;
+import com.gamesbykevin.androidframeworkv2.maze.RoomLayout;
+import com.gamesbykevin.androidframeworkv2.maze.RoomMask;
+import com.gamesbykevin.androidframeworkv2.maze.Topology;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Arrays;
 import java.util.Random;
 
 /**
- * Prim's maze generation algorithm
+ * Prim's maze generation algorithm.<br>
+ * The frontier is a dense array of room indexes, and each room knows its position in the array,
+ * so adding, checking and removing a random room all take constant time
  * @author GOD
  */
 public class Prims extends Maze
 {
-    //list of rooms to check
-    private List<Room> options;
+    //the rooms to check, the first size elements are used
+    private int[] options;
+
+    //the position of each room in the options, -1 if the room isn't an option
+    private int[] positions;
+
+    //the number of rooms to check
+    private int size;
+
+    //the walls leading to a visited room we can join with
+    private int[] choices;
 
     public Prims(final boolean hexagon, final int cols, final int rows) throws Exception
     {
-        super(hexagon, cols, rows);
+        this(Topology.get(hexagon), cols, rows);
+    }
+
+    public Prims(final Topology topology, final int cols, final int rows) throws Exception
+    {
+        this(topology, RoomLayout.RowMajor, cols, rows);
+    }
+
+    public Prims(final Topology topology, final RoomLayout layout, final int cols, final int rows) throws Exception
+    {
+        super(topology, layout, cols, rows);
         
         //set walls for each room
         super.populateRooms();
         
-        //create a new list of optional rooms
-        this.options = new ArrayList<>();
+        //create the arrays of optional rooms
+        this.options = new int[getSize()];
+        this.positions = new int[getSize()];
+        this.choices = new int[getTopology().getWallCount()];
+        Arrays.fill(this.positions, -1);
+    }
+
+    public Prims(final Topology topology, final RoomMask mask) throws Exception
+    {
+        super(topology, mask);
+        
+        //set walls for each room
+        super.populateRooms();
+        
+        //create the arrays of optional rooms
+        this.options = new int[getSize()];
+        this.positions = new int[getSize()];
+        this.choices = new int[getTopology().getWallCount()];
+        Arrays.fill(this.positions, -1);
     }
     
     @Override
@@ -33,10 +71,31 @@ public class Prims extends Maze
     {
         super.dispose();
         
-        options.clear();
         options = null;
+        positions = null;
+        choices = null;
     }
     
+    @Override
+    public void reset()
+    {
+        super.reset();
+
+        //clear our optional rooms
+        Arrays.fill(positions, -1);
+        size = 0;
+    }
+
+    /**
+     * Get the bytes, including the frontier and the position of each room in it
+     * @return The estimated number of bytes the arrays of this maze use
+     */
+    @Override
+    public long getBytes()
+    {
+        return super.getBytes() + (8L * getSize()) + (4L * getTopology().getWallCount());
+    }
+
     /**
      * Create our maze
      * @param random Object used to make random decisions
@@ -48,69 +107,74 @@ public class Prims extends Maze
         //if generated no need to continue
         if (isGenerated())
             return;
-        
-        //our temporary room
-        Room room;
-        
+
         //if we don't have any visited rooms yet, we are just starting
-        if (!MazeHelper.hasVisited(this))
+        final boolean started = (getStorage().getVisitedCount() > 0);
+
+        if (!started)
         {
-            //pick a random location
-            final int col = random.nextInt(getCols());
-            final int row = random.nextInt(getRows());
-            
-            //add this random room to the list of options
-            options.add(getRoom(col, row));
+            //add a random room to the list of options
+            add(getRandomIndex(random));
         }
         
-        //pick random position in our list
-        final int index = random.nextInt(options.size());
-        
-        //pick random room from options
-        room = options.get(index);
+        //pick random room from options, and remove it
+        final int room = options[random.nextInt(size)];
+        remove(room);
         
         //if we have started
-        if (MazeHelper.hasVisited(this))
+        if (started)
         {
-            //list of choices to move to
-            final List<Room> choices = new ArrayList<>();
+            //the number of walls we can choose from
+            int total = 0;
 
             //check all walls
-            for (Room.Wall wall : Room.getAllWalls(isHexagon())) {
-
-                //get the neighbor room
-                Room tmp = getRoomNeighbor(room, wall);
+            for (int i = 0; i < getTopology().getWallCount(); i++) {
+                final int neighbor = getNeighbor(room, i);
 
                 //we only want to add the room that exists and is already visited to join with
-                if (tmp != null && tmp.hasVisited())
-                    choices.add(tmp);
+                if (neighbor >= 0 && getStorage().hasVisited(neighbor))
+                    choices[total++] = i;
             }
 
-            //the other room
-            final Room other = choices.get(random.nextInt(choices.size()));
-            
             //join the rooms
-            MazeHelper.joinRooms(isHexagon(), room, other);
+            carve(room, getTopology().getWall(choices[random.nextInt(total)]));
         }
         
         //mark the room as visited
-        room.setVisited(true);
+        getStorage().setVisited(room, true);
 
         //check all walls
-        for (Room.Wall wall : Room.getAllWalls(isHexagon())) {
-
-            //get the neighbor room
-            Room tmp = getRoomNeighbor(room, wall);
+        for (int i = 0; i < getTopology().getWallCount(); i++) {
+            final int neighbor = getNeighbor(room, i);
 
             //add any optional directions that haven't been visited and don't already exist in the list
-            if (tmp != null && !tmp.hasVisited() && !options.contains(tmp))
-                options.add(tmp);
+            if (neighbor >= 0 && !getStorage().hasVisited(neighbor) && positions[neighbor] < 0)
+                add(neighbor);
         }
 
         //increase the progress
         super.getProgress().increase();
-        
-        //remove from the list
-        options.remove(index);
     }
-}
\ No newline at end of file
+
+    /**
+     * Add a room to the options
+     * @param index The index of the room
+     */
+    private void add(final int index)
+    {
+        positions[index] = size;
+        options[size++] = index;
+    }
+
+    /**
+     * Remove a room from the options, the last option is moved into its place
+     * @param index The index of the room
+     */
+    private void remove(final int index)
+    {
+        final int last = options[--size];
+        options[positions[index]] = last;
+        positions[last] = positions[index];
+        positions[index] = -1;
+    }
+}
@@ -1,36 +1,58 @@
 package com.gamesbykevin.androidframeworkv2.maze.algorithm;
 
-import com.gamesbykevin.androidframeworkv2.base.Cell;
 import com.gamesbykevin.androidframeworkv2.maze.Maze;
-import com.gamesbykevin.androidframeworkv2.maze.MazeHelper;
-import com.gamesbykevin.androidframeworkv2.maze.Room;
-import com.gamesbykevin.androidframeworkv2.maze.Room.Wall;
+import com.gamesbykevin.androidframeworkv2.maze.RoomLayout;
+import com.gamesbykevin.androidframeworkv2.maze.RoomMask;
+import com.gamesbykevin.androidframeworkv2.maze.Topology;
 
-import java.util.ArrayList;
-import java.util.List;
 import java.util.Random;
 
 /**
- * Recursive Backtracking maze generation algorithm
+ * Recursive Backtracking maze generation algorithm.<br>
+ * The path we took is kept as a stack of room indexes, each room is only added once so the stack is created with the size of the maze
  * @author GOD
  */
 public class RecursiveBacktracking extends Maze
 {
-    //our current location
-    private int col = 0, row = 0;
-    
-    //list of places visited, used to help generate the maze
-    private List<Cell> steps;
+    //the index of each room on the path we took, used to back track
+    private int[] steps;
+
+    //the number of rooms on the path
+    private int total = 0;
+
+    //the walls leading to a room that hasn't been visited
+    private int[] options;
     
     public RecursiveBacktracking(final boolean hexagon, final int cols, final int rows) throws Exception
     {
-        super(hexagon, cols, rows);
+        this(Topology.get(hexagon), cols, rows);
+    }
+
+    public RecursiveBacktracking(final Topology topology, final int cols, final int rows) throws Exception
+    {
+        this(topology, RoomLayout.RowMajor, cols, rows);
+    }
+
+    public RecursiveBacktracking(final Topology topology, final RoomLayout layout, final int cols, final int rows) throws Exception
+    {
+        super(topology, layout, cols, rows);
+        
+        //set walls for each room
+        super.populateRooms();
+        
+        //create the arrays, to track the steps
+        createSteps();
+    }
+
+    public RecursiveBacktracking(final Topology topology, final RoomMask mask) throws Exception
+    {
+        super(topology, mask);
         
         //set walls for each room
         super.populateRooms();
         
-        //create new list, to track the steps
-        this.steps = new ArrayList<>();
+        //create the arrays, to track the steps
+        createSteps();
     }
     
     @Override
@@ -38,10 +60,38 @@ public class RecursiveBacktracking extends Maze
     {
         super.dispose();
         
-        steps.clear();
         steps = null;
+        options = null;
     }
     
+    @Override
+    public void reset()
+    {
+        super.reset();
+
+        //clear the steps we made
+        total = 0;
+    }
+
+    /**
+     * Get the bytes, including the stack of steps
+     * @return The estimated number of bytes the arrays of this maze use
+     */
+    @Override
+    public long getBytes()
+    {
+        return super.getBytes() + (4L * getSize()) + (4L * getTopology().getWallCount());
+    }
+
+    /**
+     * Create the stack of steps and the array of options
+     */
+    private void createSteps()
+    {
+        this.steps = new int[getSize()];
+        this.options = new int[getTopology().getWallCount()];
+    }
+
     /**
      * Create our maze
      * @param random Object used to make random decisions
@@ -55,101 +105,50 @@ public class RecursiveBacktracking extends Maze
             return;
         
         //if we haven't visited 1 room, we are just starting
-        if (!MazeHelper.hasVisited(this))
+        if (total == 0)
         {
-            //store the current location as the start location
-            col = super.getStartCol();
-            row = super.getStartRow();
-            
-            //add the current location as part of the steps
-            steps.add(new Cell(col, row));
+            //add the start location as part of the steps
+            steps[total++] = getIndex(getStartCol(), getStartRow());
         }
-        
-        //create empty list of optional walls
-        List<Wall> options = new ArrayList<Wall>();
 
-        for (Wall wall : Room.getAllWalls(isHexagon())) {
+        //our current location
+        final int index = steps[total - 1];
+
+        //the number of walls we can choose from
+        int count = 0;
+
+        for (int i = 0; i < getTopology().getWallCount(); i++) {
 
             //get the neighbor
-            Room neighbor = getRoomNeighbor(col, row, wall);
+            final int neighbor = getNeighbor(index, i);
 
-            //check the wall direction, make sure we are inbounds and have not visited our neighbor
-            if (neighbor != null && !neighbor.hasVisited())
-                options.add(wall);
+            //make sure we are inbounds and have not visited our neighbor
+            if (neighbor >= 0 && !getStorage().hasVisited(neighbor))
+                options[count++] = i;
         }
 
         //if there are no options we have to back track
-        if (options.isEmpty())
+        if (count == 0)
         {
-            //the previous location was a dead end, so remove it
-            steps.remove(steps.size() - 1);
-            
-            //now get the location before that
-            col = (int)steps.get(steps.size() - 1).getCol();
-            row = (int)steps.get(steps.size() - 1).getRow();
+            //the current location was a dead end, so remove it
+            total--;
         }
         else
         {
             //pick a random wall from our options
-            final Wall wall = options.get(random.nextInt(options.size()));
-            
-            //remove the wall from our current
-            getRoom(col, row).removeWall(wall);
+            final int wall = options[random.nextInt(count)];
 
             //mark this as visited
-            getRoom(col, row).setVisited(true);
-
-            //get the neighbor
-            Room neighbor = getRoomNeighbor(col, row, wall);
+            getStorage().setVisited(index, true);
 
-            //update new location based on neighbor
-            row = neighbor.getRow();
-            col = neighbor.getCol();
+            //remove the wall from our current room and the neighbor
+            final int neighbor = carve(index, getTopology().getWall(wall));
 
             //mark the neighbor
-            neighbor.setVisited(true);
-
-            //remove the wall from our neighbor accordingly
-            switch (wall)
-            {
-                case NorthWest:
-                    neighbor.removeWall(Wall.SouthEast);
-                    break;
-
-                case NorthEast:
-                    neighbor.removeWall(Wall.SouthWest);
-                    break;
-
-                case SouthWest:
-                    neighbor.removeWall(Wall.NorthEast);
-                    break;
-
-                case SouthEast:
-                    neighbor.removeWall(Wall.NorthWest);
-                    break;
-
-                case North:
-                    neighbor.removeWall(Wall.South);
-                    break;
-
-                case South:
-                    neighbor.removeWall(Wall.North);
-                    break;
-
-                case West:
-                    neighbor.removeWall(Wall.East);
-                    break;
-
-                case East:
-                    neighbor.removeWall(Wall.West);
-                    break;
-
-                default:
-                    throw new Exception("Wall not defined: " + wall.toString());
-            }
+            getStorage().setVisited(neighbor, true);
             
-            //add the current location as part of the steps
-            steps.add(new Cell(col, row));
+            //add the new location as part of the steps
+            steps[total++] = neighbor;
         }
         
         //update the progress
@@ -0,0 +1,188 @@
+package com.gamesbykevin.androidframeworkv2.maze.algorithm;
+
+import com.gamesbykevin.androidframeworkv2.maze.Room.Wall;
+import com.gamesbykevin.androidframeworkv2.maze.Topology;
+
+import java.util.Arrays;
+
+/**
+ * The sets of the current row, shared by the Ellers algorithms.<br>
+ * The sets in a row are labeled from 0 to cols - 1 and merged with a union find, so each row takes linear time.<br>
+ * The sets only decide which passages are allowed, the algorithm removes the walls and makes the random decisions
+ * so each algorithm can use its own source of random bits
+ * @author GOD
+ */
+class RowSets
+{
+    //the set label of each room in the current row, and the next row
+    private int[] sets, next;
+
+    //the parent of each set label, used to merge sets
+    private final int[] parents;
+
+    //the number of rooms in each set that haven't been checked for a vertical passage
+    private final int[] remaining;
+
+    //the label of each set in the next row, -1 if the set doesn't continue
+    private final int[] labels;
+
+    //the number of labels used in the next row
+    private int count;
+
+    /**
+     * Create the sets, every room in the first row starts in its own set
+     * @param cols The number of rooms in each row
+     */
+    RowSets(final int cols)
+    {
+        this.sets = new int[cols];
+        this.next = new int[cols];
+        this.parents = new int[cols];
+        this.remaining = new int[cols];
+        this.labels = new int[cols];
+
+        reset();
+    }
+
+    /**
+     * Put every room of the first row in its own set
+     */
+    void reset()
+    {
+        for (int col = 0; col < sets.length; col++)
+        {
+            sets[col] = col;
+            parents[col] = col;
+        }
+
+        Arrays.fill(remaining, 0);
+        Arrays.fill(labels, -1);
+        count = 0;
+    }
+
+    /**
+     * Get the bytes
+     * @return The number of bytes the arrays of the sets use
+     */
+    long getBytes()
+    {
+        return 20L * sets.length;
+    }
+
+    /**
+     * Are the rooms already part of the same set?
+     * @param col The column of the west room, the east room is in the next column
+     * @return true if the rooms are connected, false if a passage between them can be created
+     */
+    boolean isJoined(final int col)
+    {
+        return (find(sets[col]) == find(sets[col + 1]));
+    }
+
+    /**
+     * Merge the set of the room with the set of the room east of it
+     * @param col The column of the west room, the east room is in the next column
+     */
+    void join(final int col)
+    {
+        parents[find(sets[col + 1])] = find(sets[col]);
+    }
+
+    /**
+     * Start creating the vertical passages to the next row, call {@link #goDown(int, boolean)} for each column in order
+     */
+    void startVertical()
+    {
+        //count the rooms in each set
+        for (int col = 0; col < sets.length; col++)
+        {
+            sets[col] = find(sets[col]);
+            remaining[sets[col]]++;
+        }
+
+        count = 0;
+    }
+
+    /**
+     * Does the room have a passage to the room below?<br>
+     * The last room of a set without a passage has to go down, so every set continues to the next row
+     * @param col The column of the room
+     * @param chance The random decision to go down
+     * @return true if a passage to the room below has to be created
+     */
+    boolean goDown(final int col, final boolean chance)
+    {
+        final int set = sets[col];
+
+        remaining[set]--;
+
+        if (chance || (remaining[set] == 0 && labels[set] < 0))
+        {
+            //the room below continues the set
+            if (labels[set] < 0)
+                labels[set] = count++;
+
+            next[col] = labels[set];
+            return true;
+        }
+
+        next[col] = -1;
+        return false;
+    }
+
+    /**
+     * Finish the vertical passages, the next row becomes the current row
+     */
+    void finishVertical()
+    {
+        //every room below without a passage starts its own set
+        for (int col = 0; col < sets.length; col++)
+        {
+            if (next[col] < 0)
+                next[col] = count++;
+        }
+
+        //clear the labels of the sets we used
+        for (int col = 0; col < sets.length; col++)
+        {
+            labels[sets[col]] = -1;
+            parents[col] = col;
+        }
+
+        final int[] tmp = sets;
+        sets = next;
+        next = tmp;
+    }
+
+    /**
+     * Find the set
+     * @param label The label of a set
+     * @return The label of the set it was merged into
+     */
+    private int find(int label)
+    {
+        while (parents[label] != label)
+        {
+            //point to the grandparent as we go, to keep the path short
+            parents[label] = parents[parents[label]];
+            label = parents[label];
+        }
+
+        return label;
+    }
+
+    /**
+     * Get the wall leading to the room below in the same column
+     * @param topology The shape of each room
+     * @param row The row of the room
+     * @return The wall of a room in the row
+     */
+    static Wall getSouth(final Topology topology, final long row)
+    {
+        if (!topology.isHexagon())
+            return Wall.South;
+
+        //the hexagon rows are shifted, so it depends on the row
+        return (topology.getColOffset(Wall.SouthEast, (int)(row & 1)) == 0) ? Wall.SouthEast : Wall.SouthWest;
+    }
+}
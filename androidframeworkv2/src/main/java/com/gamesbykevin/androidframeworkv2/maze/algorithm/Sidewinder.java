@@ -3,6 +3,8 @@ package com.gamesbykevin.androidframeworkv2.maze.algorithm;
 import com.gamesbykevin.androidframeworkv2.maze.Maze;
 import com.gamesbykevin.androidframeworkv2.maze.MazeHelper;
 import com.gamesbykevin.androidframeworkv2.maze.Room;
+import com.gamesbykevin.androidframeworkv2.maze.RoomLayout;
+import com.gamesbykevin.androidframeworkv2.maze.Topology;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -22,7 +24,17 @@ public class Sidewinder extends Maze
     
     public Sidewinder(final boolean hexagon, final int cols, final int rows) throws Exception
     {
-        super(hexagon, cols, rows);
+        this(Topology.get(hexagon), cols, rows);
+    }
+
+    public Sidewinder(final Topology topology, final int cols, final int rows) throws Exception
+    {
+        this(topology, RoomLayout.RowMajor, cols, rows);
+    }
+
+    public Sidewinder(final Topology topology, final RoomLayout layout, final int cols, final int rows) throws Exception
+    {
+        super(topology, layout, cols, rows);
         
         //fill all walls
         super.populateRooms();
@@ -40,6 +52,29 @@ public class Sidewinder extends Maze
         options = null;
     }
     
+    @Override
+    public void reset()
+    {
+        super.reset();
+
+        //start back at the beginning
+        currentCol = 0;
+        currentRow = 0;
+
+        //clear our list
+        options.clear();
+    }
+
+    /**
+     * Get the bytes, including the rooms of the current run, about 32 bytes for each room view
+     * @return The estimated number of bytes the arrays of this maze use
+     */
+    @Override
+    public long getBytes()
+    {
+        return super.getBytes() + (32L * getCols());
+    }
+
     /**
      * Create our maze
      * @param random Object used to make random decisions
@@ -110,15 +145,12 @@ public class Sidewinder extends Maze
         //the current room
         final Room room = getRoom(currentCol, currentRow);
 
-        //the room to the east
-        final Room east = getRoom(currentCol + 1, currentRow);
+        //join the rooms, getting the room to the east
+        final int east = carve(room.getIndex(), Room.Wall.East);
 
         //mark the rooms as visited
         room.setVisited(true);
-        east.setVisited(true);
-
-        //join the rooms
-        MazeHelper.joinRooms(isHexagon(), room, east);
+        getStorage().setVisited(east, true);
     }
     
     /**
@@ -137,35 +169,35 @@ public class Sidewinder extends Maze
             //pick a random room in our set
             final Room room = options.get(random.nextInt(options.size()));
 
-            //the room to the north
-            final Room north;
+            //the direction to the north
+            final Room.Wall direction;
 
             //if hexagon we have 2 options for north
             if (isHexagon()) {
 
                 //2 optional rooms
-                Room room1 = getRoomNeighbor(room, Room.Wall.NorthWest);
-                Room room2 = getRoomNeighbor(room, Room.Wall.NorthEast);
+                final int room1 = getNeighbor(room.getIndex(), Room.Wall.NorthWest);
+                final int room2 = getNeighbor(room.getIndex(), Room.Wall.NorthEast);
 
-                if (room1 != null && room2 == null) {
-                    north = room1;
-                } else if (room1 == null && room2 != null) {
-                    north = room2;
+                if (room1 >= 0 && room2 < 0) {
+                    direction = Room.Wall.NorthWest;
+                } else if (room1 < 0 && room2 >= 0) {
+                    direction = Room.Wall.NorthEast;
                 } else {
-                    north = random.nextBoolean() ? room1 : room2;
+                    direction = random.nextBoolean() ? Room.Wall.NorthWest : Room.Wall.NorthEast;
                 }
 
             } else {
                 //room directly above to the north
-                north = getRoom(room.getCol(), room.getRow() - 1);
+                direction = Room.Wall.North;
             }
 
+            //join the rooms
+            final int north = carve(room.getIndex(), direction);
+
             //mark the rooms as visited
             room.setVisited(true);
-            north.setVisited(true);
-
-            //join the rooms
-            MazeHelper.joinRooms(isHexagon(), room, north);
+            getStorage().setVisited(north, true);
         }
     }
 }
\ No newline at end of file
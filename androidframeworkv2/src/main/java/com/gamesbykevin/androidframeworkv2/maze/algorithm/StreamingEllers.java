@@ -0,0 +1,207 @@
+package com.gamesbykevin.androidframeworkv2.maze.algorithm;
+
+import com.gamesbykevin.androidframeworkv2.base.Disposable;
+import com.gamesbykevin.androidframeworkv2.maze.Room.Wall;
+import com.gamesbykevin.androidframeworkv2.maze.Topology;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Ellers maze generation algorithm that creates one row at a time without storing the maze.<br>
+ * Each finished row is copied to the caller as the walls of every room, one bit per wall the same as {@link com.gamesbykevin.androidframeworkv2.maze.RoomStorage},
+ * only the sets of the current row are kept so the memory used doesn't depend on how many rows are created.<br>
+ * Rows can be created forever, {@link #close(Random, byte[])} creates a last row that joins every set so the rows created are a perfect maze
+ * @author GOD
+ */
+public class StreamingEllers implements Disposable
+{
+    //the shape of each room
+    private final Topology topology;
+
+    //the number of rooms in each row
+    private final int cols;
+
+    //the number of rows we have created
+    private long row = 0;
+
+    //has the last row been created
+    private boolean closed = false;
+
+    //the sets of the current row
+    private RowSets sets;
+
+    //does each room in the current row have a passage to the room above
+    private boolean[] open;
+
+    public StreamingEllers(final boolean hexagon, final int cols) throws Exception
+    {
+        this(Topology.get(hexagon), cols);
+    }
+
+    public StreamingEllers(final Topology topology, final int cols) throws Exception
+    {
+        if (cols < 1)
+            throw new Exception("The rows must contain at least 1 column");
+
+        this.topology = topology;
+        this.cols = cols;
+        this.sets = new RowSets(cols);
+        this.open = new boolean[cols];
+
+        //every room in the first row starts in its own set
+        reset();
+    }
+
+    @Override
+    public void dispose()
+    {
+        sets = null;
+        open = null;
+    }
+
+    /**
+     * Start over from the first row
+     */
+    public void reset()
+    {
+        sets.reset();
+        Arrays.fill(open, false);
+
+        row = 0;
+        closed = false;
+    }
+
+    /**
+     * Get the topology
+     * @return The shape of each room
+     */
+    public Topology getTopology()
+    {
+        return this.topology;
+    }
+
+    /**
+     * Get the columns
+     * @return The number of rooms in each row
+     */
+    public int getCols()
+    {
+        return this.cols;
+    }
+
+    /**
+     * Get the row
+     * @return The number of rows we have created, which is also the row the next call will create
+     */
+    public long getRow()
+    {
+        return this.row;
+    }
+
+    /**
+     * Has the last row been created?
+     * @return true if {@link #close(Random, byte[])} was called, no more rows can be created until we are reset
+     */
+    public boolean isClosed()
+    {
+        return this.closed;
+    }
+
+    /**
+     * Create the next row, the row has at least 1 passage down to the row after it
+     * @param random Object used to make random decisions
+     * @param walls The array we copy the walls of each room in the row to, it needs at least {@link #getCols()} elements
+     * @return The row that was created
+     * @throws Exception If the last row was already created
+     */
+    public long next(final Random random, final byte[] walls) throws Exception
+    {
+        return create(random, walls, false);
+    }
+
+    /**
+     * Create the last row, every set that is left is joined so the rows created are a perfect maze
+     * @param random Object used to make random decisions
+     * @param walls The array we copy the walls of each room in the row to, it needs at least {@link #getCols()} elements
+     * @return The row that was created
+     * @throws Exception If the last row was already created
+     */
+    public long close(final Random random, final byte[] walls) throws Exception
+    {
+        return create(random, walls, true);
+    }
+
+    /**
+     * Create a row
+     * @param random Object used to make random decisions
+     * @param walls The array we copy the walls of each room in the row to
+     * @param last Is this the last row
+     * @return The row that was created
+     * @throws Exception If the last row was already created
+     */
+    private long create(final Random random, final byte[] walls, final boolean last) throws Exception
+    {
+        if (isClosed())
+            throw new Exception("The last row was already created");
+
+        //the wall leading to the room below in the same column, and the wall of that room leading back up
+        final Wall south = RowSets.getSouth(getTopology(), row);
+        final Wall north = getTopology().getOpposite(RowSets.getSouth(getTopology(), row - 1));
+
+        //every room starts with every wall, except the passages from the row above
+        for (int col = 0; col < getCols(); col++)
+        {
+            walls[col] = (byte)getTopology().getWallMask();
+
+            if (open[col])
+                walls[col] &= ~north.getBit();
+        }
+
+        //randomly choose to join adjacent rooms of different sets, the last row joins every set
+        for (int col = 0; col < getCols() - 1; col++)
+        {
+            if (!sets.isJoined(col) && (last || random.nextBoolean()))
+            {
+                walls[col] &= ~Wall.East.getBit();
+                walls[col + 1] &= ~Wall.West.getBit();
+                sets.join(col);
+            }
+        }
+
+        if (last)
+        {
+            closed = true;
+        }
+        else
+        {
+            createVerticalPaths(random, walls, south);
+        }
+
+        return row++;
+    }
+
+
+    /**
+     * Create the vertical passages to the next row, each set has at least 1 passage
+     * @param random Object used to make random decisions
+     * @param walls The walls of the current row
+     * @param south The wall leading to the room below
+     */
+    private void createVerticalPaths(final Random random, final byte[] walls, final Wall south)
+    {
+        sets.startVertical();
+
+        for (int col = 0; col < getCols(); col++)
+        {
+            //go down at random, every set has to continue
+            open[col] = sets.goDown(col, random.nextBoolean());
+
+            if (open[col])
+                walls[col] &= ~south.getBit();
+        }
+
+        //the next row becomes the current row
+        sets.finishVertical();
+    }
+}
@@ -1,71 +1,165 @@
 package com.gamesbykevin.androidframeworkv2.maze.algorithm;
 
-import com.gamesbykevin.androidframeworkv2.base.Entity;
 import com.gamesbykevin.androidframeworkv2.maze.Maze;
 import com.gamesbykevin.androidframeworkv2.maze.MazeHelper;
-import com.gamesbykevin.androidframeworkv2.maze.Room;
+import com.gamesbykevin.androidframeworkv2.maze.RoomLayout;
+import com.gamesbykevin.androidframeworkv2.maze.RoomMask;
+import com.gamesbykevin.androidframeworkv2.maze.Topology;
+import com.gamesbykevin.androidframeworkv2.maze.VisitedIndex;
 import com.gamesbykevin.androidframeworkv2.maze.Room.Wall;
 
-import java.util.ArrayList;
-import java.util.List;
 import java.util.Random;
 
 /**
- * Wilson's maze generation algorithm
+ * Wilson's maze generation algorithm.<br>
+ * The rooms that haven't been visited are kept in an array so a random one can be picked right away,
+ * and each room remembers the last direction the walk left it, so following those directions from the start of the walk
+ * gives the walk with every loop already erased
  * @author GOD
  */
 public class Wilsons extends Maze
 {
-    //temporary list for rooms
-    private List<Room> options;
-    
-    //list of directions
-    private List<Target> directions;
-    
-    //temporary list of directions
-    private List<Wall> tmp;
-    
-    //our current location
-    private int col, row;
-    
-    //the start location while generating the maze
-    private int startCol, startRow;
+    //the rooms that haven't been visited, the first remaining elements are used
+    private int[] unvisited;
+
+    //the position of each room in the unvisited array
+    private int[] positions;
+
+    //the number of rooms that haven't been visited
+    private int remaining;
+
+    //the index of the wall each room was last left through during the walk
+    private byte[] exits;
+
+    //used to find the nearest visited room
+    private VisitedIndex nearest;
+
+    //the directions we can choose from
+    private int[] options;
+
+    //the number of directions we can choose from
+    private int total;
+
+    //are we walking
+    private boolean walking = false;
+
+    //the room the walk started at, and our current location
+    private int start, current;
     
     //count the number of moves made before meeting a room part of the maze
     private int count = 0;
     
     public Wilsons(final boolean hexagon, final int cols, final int rows) throws Exception
     {
-        super(hexagon, cols, rows);
+        this(Topology.get(hexagon), cols, rows);
+    }
+
+    public Wilsons(final Topology topology, final int cols, final int rows) throws Exception
+    {
+        this(topology, RoomLayout.RowMajor, cols, rows);
+    }
+
+    public Wilsons(final Topology topology, final RoomLayout layout, final int cols, final int rows) throws Exception
+    {
+        super(topology, layout, cols, rows);
         
         //fill each room with walls
         super.populateRooms();
+
+        //create the arrays we need to walk
+        createWalk();
+    }
+
+    public Wilsons(final Topology topology, final RoomMask mask) throws Exception
+    {
+        super(topology, mask);
         
-        //create new list
-        this.options = new ArrayList<>();
-        
-        //create new list
-        this.directions = new ArrayList<>();
-        
-        //create new list
-        this.tmp = new ArrayList<>();
+        //fill each room with walls
+        super.populateRooms();
+
+        //create the arrays we need to walk
+        createWalk();
     }
     
     @Override
     public void dispose()
     {
         super.dispose();
-        
-        options.clear();
+
+        unvisited = null;
+        positions = null;
+        exits = null;
         options = null;
-        
-        tmp.clear();
-        tmp = null;
-        
-        directions.clear();
-        directions = null;
+        nearest = null;
     }
     
+    @Override
+    public void reset()
+    {
+        super.reset();
+
+        //every room is unvisited again
+        resetWalk();
+    }
+
+    /**
+     * Get the bytes, including the unvisited rooms, their positions, the exit of each room and the visited index
+     * @return The estimated number of bytes the arrays of this maze use
+     */
+    @Override
+    public long getBytes()
+    {
+        return super.getBytes() + (9L * getSize()) + (4L * getTopology().getWallCount()) + nearest.getBytes();
+    }
+
+    /**
+     * Create the arrays we need to walk
+     */
+    private void createWalk()
+    {
+        this.unvisited = new int[getSize()];
+        this.positions = new int[getSize()];
+        this.exits = new byte[getSize()];
+        this.options = new int[getTopology().getWallCount()];
+        this.nearest = new VisitedIndex(this);
+
+        resetWalk();
+    }
+
+    /**
+     * Mark every room as unvisited, and stop walking
+     */
+    private void resetWalk()
+    {
+        for (int index = 0; index < getSize(); index++)
+        {
+            this.unvisited[index] = index;
+            this.positions[index] = index;
+        }
+
+        this.remaining = getSize();
+        this.nearest.reset();
+        this.walking = false;
+        this.count = 0;
+    }
+
+    /**
+     * Mark the room visited, and remove it from the unvisited rooms
+     * @param index The index of the room
+     */
+    private void visit(final int index)
+    {
+        getStorage().setVisited(index, true);
+        this.nearest.add(index);
+
+        //move the last unvisited room into the position of this room
+        final int position = this.positions[index];
+        final int last = this.unvisited[--this.remaining];
+
+        this.unvisited[position] = last;
+        this.positions[last] = position;
+    }
+
     /**
      * Create our maze
      * @param random Object used to make random decisions
@@ -80,108 +174,76 @@ public class Wilsons extends Maze
         
         //we are just creating the maze, mark the first room as visited
         if (!MazeHelper.hasVisited(this))
-            getRandomRoom(random).setVisited(true);
-
-        //if we have no steps currently
-        if (directions.isEmpty()) {
+            visit(getRandomRoom(random));
 
+        //if we aren't walking start a new walk
+        if (!walking)
+        {
             //pick random room to start
-            final Room room = getRandomRoom(random);
-            
-            //assign the start location
-            startCol = room.getCol();
-            startRow = room.getRow();
-            
-            //assign the current location
-            col = startCol;
-            row = startRow;
-            
+            start = getRandomRoom(random);
+            current = start;
+            walking = true;
+
             //reset the count
             count = 0;
         }
-        
-        //clear objects in list
-        tmp.clear();
+
+        total = 0;
         
         /**
          * If the number of attempts has exceeded half the size of the maze we will locate the closest visited room.
          * This is to help shorten the time of maze creation.
+         * The nearest room of a mask can be on the other side of a hole, so a mask only uses the random walk.
          */
-        if (count >= (getCols() * getRows()) / 2)
-            calculateShortestPath();
-
-        //if the list is empty, locate optional directions
-        if (tmp.isEmpty())
+        if (getMask() == null && count >= getSize() / 2)
         {
-            for (Wall wall : Room.getAllWalls(isHexagon())) {
+            calculateShortestPath(getCol(current), getRow(current));
 
-                //get the neighbor
-                Room neighbor = getRoomNeighbor(col, row, wall);
+            //only keep the directions leading to a room in the maze
+            for (int index = total - 1; index >= 0; index--)
+            {
+                if (getNeighbor(current, options[index]) < 0)
+                    options[index] = options[--total];
+            }
+        }
 
+        //if the list is empty, locate optional directions
+        if (total == 0)
+        {
+            for (int i = 0; i < getTopology().getWallCount(); i++)
+            {
                 //if the neighbor exists, add to list
-                if (neighbor != null)
-                    tmp.add(wall);
+                if (getNeighbor(current, i) >= 0)
+                    options[total++] = i;
             }
         }
         
-        //pick a random direction from the list
-        final Wall direction = tmp.get(random.nextInt(tmp.size()));
-        
-        //add direction to list
-        directions.add(new Target(direction, col, row));
+        //pick a random direction, and remember it as the way we left this room
+        final int direction = options[random.nextInt(total)];
+        exits[current] = (byte)direction;
 
-        //get the neighbor
-        Room neighbor = getRoomNeighbor(col, row, direction);
-
-        //update the location based on our random direction neighbor
-        col = neighbor.getCol();
-        row = neighbor.getRow();
+        //move to the neighbor
+        current = getNeighbor(current, direction);
 
         /**
          * If this room was visited (a.k.a. part of the maze)<br>
          * We will now create the path and from the start to this location and make it part of the maze
          */
-        if (getRoom(col, row).hasVisited())
+        if (getStorage().hasVisited(current))
         {
-            //continue until the start location gets to the finish
-            while (startCol != col || startRow != row)
+            //follow the last exit of each room, any loop we walked was left through a different exit
+            int index = start;
+
+            while (!getStorage().hasVisited(index))
             {
-                //get the room at the start location
-                Room room1 = getRoom(startCol, startRow);
-                
-                //next room
-                Room room2 = null;
-
-                //get the target at this specific location to determine the next move
-                for (int index = directions.size() - 1; index >= 0; index--)
-                {
-                    if (directions.get(index).hasTarget(room1))
-                    {
-                        //get the next room in our steps
-                        room2 = getRoomNeighbor(startCol, startRow, directions.get(index).direction);
-
-                        //now remove this target
-                        directions.remove(index);
-                        
-                        //exit the for loop
-                        break;
-                    }
-                }
-                
-                //mark both rooms visited
-                room1.setVisited(true);
-                room2.setVisited(true);
-                
+                visit(index);
+
                 //join the rooms together
-                MazeHelper.joinRooms(isHexagon(), room1, room2);
-                
-                //now update the start location to the current position
-                startCol = room2.getCol();
-                startRow = room2.getRow();
+                index = carve(index, getTopology().getWall(exits[index]));
             }
-            
-            //make sure we clear the list
-            directions.clear();
+
+            //the walk is finished
+            walking = false;
         }
         else
         {
@@ -196,98 +258,74 @@ public class Wilsons extends Maze
     /**
      * Calculate the shortest path.<br>
      * What we will do is find the direction of the nearest visited room.
+     * @param col The column of our current location
+     * @param row The row of our current location
      */
-    private void calculateShortestPath()
+    private void calculateShortestPath(final int col, final int row)
     {
-        //the highest distance
-        double distance = (getCols() * getRows());
-        
-        //our temp room
-        Room room = null;
-        
-        //check all rooms
-        for (int row1 = 0; row1 < getRows(); row1++)
-        {
-            for (int col1 = 0; col1 < getCols(); col1++)
-            {
-                //don't check the same location
-                if (col == col1 && row == row1)
-                    continue;
-                
-                //don't check a room that hasn't been visited
-                if (!getRoom(col1, row1).hasVisited())
-                    continue;
-                
-                //calculate the distance
-                final double temp = Entity.getDistance(col1, row1, col, row);
-                
-                //if we found a shorter distance
-                if (temp < distance)
-                {
-                    //set this as the one to beat
-                    distance = temp;
-                    
-                    //assign the shortest room
-                    room = getRoom(col1, row1);
-                }
-            }
-        }
-        
+        //find the nearest room that is part of the maze
+        final int index = this.nearest.findNearest(col, row, true);
+
         //if the winning room was found
-        if (room != null)
+        if (index >= 0)
         {
+            //the location of the winning room
+            final int roomCol = getCol(index);
+            final int roomRow = getRow(index);
+
             /**
              * Compare the room to the current location. 
              * So we know which direction to head in
              */
-            for (Wall wall : Room.getAllWalls(isHexagon())) {
+            for (int i = 0; i < getTopology().getWallCount(); i++) {
+                final Wall wall = getTopology().getWall(i);
 
                 switch (wall) {
 
                     case North:
 
-                        if (room.getRow() < row)
-                            tmp.add(wall);
+                        if (roomRow < row)
+                            options[total++] = i;
                         break;
 
                     case South:
 
-                        if (room.getRow() > row)
-                            tmp.add(wall);
+                        if (roomRow > row)
+                            options[total++] = i;
                         break;
 
                     case West:
 
                         if (isHexagon()) {
-                            if (room.getCol() < col && room.getRow() == row)
-                                tmp.add(wall);
+                            if (roomCol < col && roomRow == row)
+                                options[total++] = i;
                         } else {
-                            if (room.getCol() < col)
-                                tmp.add(wall);
+                            if (roomCol < col)
+                                options[total++] = i;
                         }
                         break;
 
                     case East:
 
                         if (isHexagon()) {
-                            if (room.getCol() > col && room.getRow() == row)
-                                tmp.add(wall);
+                            if (roomCol > col && roomRow == row)
+                                options[total++] = i;
                         } else {
-                            if (room.getCol() > col)
-                                tmp.add(wall);
+                            if (roomCol > col)
+                                options[total++] = i;
                         }
                         break;
 
                     case NorthWest:
 
                         //if the winning room is above s
-                        if (room.getRow() < row) {
-                            if (room.getRow() % 2 == 0) {
-                                if (room.getCol() < col)
-                                    tmp.add(wall);
+                        if (roomRow < row) {
+                            if (roomRow % 2 == 0) {
+                                if (roomCol < col)
+                                    options[total++] = i;
                             } else {
-                                if (room.getCol() == col)
-                                    tmp.add(wall);
+                                if (roomCol == col)
+                                    options[total++] = i;
                             }
                         }
                         break;
@@ -295,13 +333,13 @@ public class Wilsons extends Maze
                     case NorthEast:
 
                         //if the winning room is above us
-                        if (room.getRow() < row) {
-                            if (room.getRow() % 2 == 0) {
-                                if (room.getCol() == col)
-                                    tmp.add(wall);
+                        if (roomRow < row) {
+                            if (roomRow % 2 == 0) {
+                                if (roomCol == col)
+                                    options[total++] = i;
                             } else {
-                                if (room.getCol() > col)
-                                    tmp.add(wall);
+                                if (roomCol > col)
+                                    options[total++] = i;
                             }
                         }
                         break;
@@ -309,13 +347,13 @@ public class Wilsons extends Maze
                     case SouthWest:
 
                         //if the winning room is below us
-                        if (room.getRow() > row) {
-                            if (room.getRow() % 2 == 0) {
-                                if (room.getCol() < col)
-                                    tmp.add(wall);
+                        if (roomRow > row) {
+                            if (roomRow % 2 == 0) {
+                                if (roomCol < col)
+                                    options[total++] = i;
                             } else {
-                                if (room.getCol() == col)
-                                    tmp.add(wall);
+                                if (roomCol == col)
+                                    options[total++] = i;
                             }
                         }
                         break;
@@ -323,13 +361,13 @@ public class Wilsons extends Maze
                     case SouthEast:
 
                         //if the winning room is below us
-                        if (room.getRow() > row) {
-                            if (room.getRow() % 2 == 0) {
-                                if (room.getCol() == col)
-                                    tmp.add(wall);
+                        if (roomRow > row) {
+                            if (roomRow % 2 == 0) {
+                                if (roomCol == col)
+                                    options[total++] = i;
                             } else {
-                                if (room.getCol() > col)
-                                    tmp.add(wall);
+                                if (roomCol > col)
+                                    options[total++] = i;
                             }
                         }
                         break;
@@ -344,62 +382,10 @@ public class Wilsons extends Maze
     /**
      * Get a random room that has not been visited
      * @param random Object used to make random decisions
-     * @return A random room that has not been visited yet
+     * @return The index of a random room that has not been visited yet
      */
-    private Room getRandomRoom(final Random random)
+    private int getRandomRoom(final Random random)
     {
-        //clear list
-        options.clear();
-        
-        //check all rooms
-        for (int row1 = 0; row1 < getRows(); row1++)
-        {
-            for (int col1 = 0; col1 < getCols(); col1++)
-            {
-                //get the room
-                final Room room = getRoom(col1, row1);
-                
-                //add to list if not already visited
-                if (!room.hasVisited())
-                    options.add(room);
-            }
-        }
-        
-        //return a random room
-        return options.get(random.nextInt(options.size()));
-    }
-    
-    /**
-     * Private class for each target to the destination
-     */
-    private class Target
-    {
-        //the direction to head in
-        private final Wall direction;
-        
-        //the current location where this direction is
-        private final int col, row;
-        
-        private Target(final Wall direction, final Room room)
-        {
-            this(direction, room.getCol(), room.getRow());
-        }
-        
-        private Target(final Wall direction, final int col, final int row)
-        {
-            this.direction = direction;
-            this.col = col;
-            this.row = row;
-        }
-        
-        /**
-         * Determine if the col, row matches that of the room
-         * @param room Room containing the position we want to check for
-         * @return true if the room (col,row) matches this target (col,row)
-         */
-        private boolean hasTarget(final Room room)
-        {
-            return (col == room.getCol() && row == room.getRow());
-        }
+        return this.unvisited[random.nextInt(this.remaining)];
     }
-}
\ No newline at end of file
+}
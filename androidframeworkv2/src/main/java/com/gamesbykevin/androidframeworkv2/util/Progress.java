@@ -5,16 +5,16 @@ import com.gamesbykevin.androidframeworkv2.base.Disposable;
 public class Progress implements Disposable
 {
     //the goal will be the logic used to determine Progress isComplete()
-    private int goal  = 0;
+    private long goal  = 0;
     
     //the count will be the logic used to track how close we are to goal
-    private int count = 0;
+    private long count = 0;
     
     /**
      * Create new Progress tracker with the desired goal set.<br>
      * @param goal The goal we are trying to reach
      */
-    public Progress(final int goal)
+    public Progress(final long goal)
     {
         setGoal(goal);
     }
@@ -29,7 +29,7 @@ public class Progress implements Disposable
      * Get the goal we have set
      * @return double The goal we are trying to reach
      */
-    public int getGoal()
+    public long getGoal()
     {
         return goal;
     }
@@ -38,7 +38,7 @@ public class Progress implements Disposable
      * Set the goal we want.
      * @param goal The goal we are trying to reach
      */
-    public final void setGoal(final int goal)
+    public final void setGoal(final long goal)
     {
         this.goal = goal;
     }
@@ -47,7 +47,7 @@ public class Progress implements Disposable
      * Where are we currently at in regards to our goal
      * @return double The number of updates made to this object
      */
-    public int getCount()
+    public long getCount()
     {
         return count;
     }
@@ -64,7 +64,7 @@ public class Progress implements Disposable
      * Set the progress towards our goal
      * @param count The completed progress
      */
-    public void setCount(final int count)
+    public void setCount(final long count)
     {
         this.count = count;
     }
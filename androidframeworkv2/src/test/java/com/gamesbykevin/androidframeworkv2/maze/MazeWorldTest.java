@@ -0,0 +1,60 @@
+package com.gamesbykevin.androidframeworkv2.maze;
+
+import android.util.Log;
+
+import com.gamesbykevin.androidframeworkv2.maze.Room.Wall;
+import com.gamesbykevin.androidframeworkv2.maze.algorithm.Prims;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.powermock.api.mockito.PowerMockito;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+import static junit.framework.Assert.assertEquals;
+
+/**
+ * Tests for {@link MazeWorld}
+ */
+@RunWith(PowerMockRunner.class)
+@PrepareForTest({Log.class})
+public class MazeWorldTest {
+
+    @Test
+    public void holdRoomAcrossEviction() throws Exception {
+
+        PowerMockito.mockStatic(Log.class);
+
+        for (Topology topology : Topology.values()) {
+
+            //only keep 1 chunk, so every new chunk evicts the last one
+            MazeWorld world = new MazeWorld(Prims.class, topology, 8, 8, 42L, 1);
+
+            //hold a room from the first chunk
+            Room room = world.getRoom(3, 3);
+
+            //the walls of the room before the eviction
+            boolean[] walls = new boolean[topology.getWallCount()];
+
+            for (int i = 0; i < topology.getWallCount(); i++) {
+                walls[i] = room.hasWall(topology.getWall(i));
+            }
+
+            //generate a chunk far away, the maze of the first chunk is reused
+            world.getRoom(80, 80);
+            assertEquals(1, world.getChunkCount());
+
+            //assume the room we are holding didn't change
+            for (int i = 0; i < topology.getWallCount(); i++) {
+                final Wall wall = topology.getWall(i);
+
+                assertEquals(walls[i], room.hasWall(wall));
+
+                //and it still matches the world
+                assertEquals(walls[i], world.hasWall(3, 3, wall));
+            }
+
+            world.dispose();
+        }
+    }
+}
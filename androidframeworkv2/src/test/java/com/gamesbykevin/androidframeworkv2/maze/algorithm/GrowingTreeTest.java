@@ -12,6 +12,7 @@ import org.powermock.modules.junit4.PowerMockRunner;
 
 import static junit.framework.Assert.assertFalse;
 import static junit.framework.Assert.assertTrue;
+import static junit.framework.Assert.fail;
 
 /**
  * Created by Kevin on 8/5/2017.
@@ -46,4 +47,57 @@ public class GrowingTreeTest extends MazeTest {
             assertTrue(maze.isGenerated());
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    public void generateSelectors() throws Exception {
+
+        PowerMockito.mockStatic(Log.class);
+
+        final GrowingTree.Selector[] selectors = {
+            GrowingTree.NEWEST, GrowingTree.OLDEST, GrowingTree.RANDOM, GrowingTree.MIDDLE,
+            GrowingTree.mix(GrowingTree.NEWEST, GrowingTree.RANDOM, 0.75f)
+        };
+
+        for (MazeTest.Scenario scenario : MazeTest.Scenario.values()) {
+
+            for (GrowingTree.Selector selector : selectors) {
+
+                //create our maze
+                GrowingTree maze = new GrowingTree(scenario.isHexagon(), scenario.getCols(), scenario.getRows());
+                maze.setSelector(selector);
+
+                //keep generating until finished
+                while (!maze.isGenerated()) {
+                    maze.update(RANDOM);
+                }
+
+                //assume maze is generated
+                assertTrue(maze.isGenerated());
+            }
+        }
+    }
+
+    @Test
+    public void invalidSelectors() throws Exception {
+
+        GrowingTree maze = new GrowingTree(false, 5, 5);
+
+        //assume a null selector is not allowed
+        try {
+            maze.setSelector(null);
+            fail();
+        } catch (Exception e) {
+            assertTrue(maze.getSelector() == GrowingTree.DEFAULT);
+        }
+
+        //assume the chance has to be between 0 and 1
+        for (float chance : new float[] {-0.1f, 1.1f, Float.NaN}) {
+            try {
+                GrowingTree.mix(GrowingTree.NEWEST, GrowingTree.RANDOM, chance);
+                fail();
+            } catch (Exception e) {
+                //expected
+            }
+        }
+    }
+}
@@ -10,6 +10,9 @@ import org.powermock.api.mockito.PowerMockito;
 import org.powermock.core.classloader.annotations.PrepareForTest;
 import org.powermock.modules.junit4.PowerMockRunner;
 
+import java.util.Arrays;
+import java.util.Random;
+
 import static junit.framework.Assert.assertFalse;
 import static junit.framework.Assert.assertTrue;
 
@@ -46,4 +49,30 @@ public class KruskalsTest extends MazeTest {
             assertTrue(maze.isGenerated());
         }
     }
+
+    @Test
+    public void regenerate() throws Exception {
+
+        PowerMockito.mockStatic(Log.class);
+
+        for (MazeTest.Scenario scenario : MazeTest.Scenario.values()) {
+
+            //generate a maze, then reset it and generate it again with the same seed
+            Kruskals maze = new Kruskals(scenario.isHexagon(), scenario.getCols(), scenario.getRows());
+            maze.regenerate(new Random(1));
+            maze.regenerate(new Random(2));
+
+            //a new maze with the same seed
+            Kruskals fresh = new Kruskals(scenario.isHexagon(), scenario.getCols(), scenario.getRows());
+            fresh.regenerate(new Random(2));
+
+            byte[] walls = new byte[maze.getSize()];
+            byte[] expected = new byte[fresh.getSize()];
+            maze.copyWalls(walls);
+            fresh.copyWalls(expected);
+
+            //assume the reset maze is the same as the new maze
+            assertTrue(Arrays.equals(expected, walls));
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,22 @@
+package com.gamesbykevin.androidframeworkv2.maze.algorithm;
+
+import android.util.Log;
+
+import com.gamesbykevin.androidframeworkv2.maze.LargeMaze;
+
+import org.junit.runner.RunWith;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+/**
+ * Generation test for {@link LargeEllers}
+ */
+@RunWith(PowerMockRunner.class)
+@PrepareForTest({Log.class})
+public class LargeEllersTest extends LargeMazeTest {
+
+    @Override
+    protected LargeMaze create(final boolean hexagon, final int cols, final int rows) throws Exception {
+        return new LargeEllers(hexagon, cols, rows);
+    }
+}
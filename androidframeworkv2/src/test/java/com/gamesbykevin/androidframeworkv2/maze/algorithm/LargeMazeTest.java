@@ -0,0 +1,98 @@
+package com.gamesbykevin.androidframeworkv2.maze.algorithm;
+
+import android.util.Log;
+
+import com.gamesbykevin.androidframeworkv2.maze.LargeMaze;
+import com.gamesbykevin.androidframeworkv2.maze.Room.Wall;
+import com.gamesbykevin.androidframeworkv2.util.DebugHelper;
+
+import org.junit.Test;
+import org.powermock.api.mockito.PowerMockito;
+
+import java.util.Random;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertTrue;
+
+/**
+ * Shared tests for every {@link LargeMaze} algorithm, each test only has to create the maze
+ */
+public abstract class LargeMazeTest extends MazeTest {
+
+    /**
+     * Create the maze we are testing
+     * @param hexagon Is each room a hexagon
+     * @param cols Total columns
+     * @param rows Total rows
+     * @return A new maze that hasn't been generated
+     * @throws Exception If the maze could not be created
+     */
+    protected abstract LargeMaze create(boolean hexagon, int cols, int rows) throws Exception;
+
+    @Test
+    public void generate() throws Exception {
+
+        PowerMockito.mockStatic(Log.class);
+
+        for (MazeTest.Scenario scenario : MazeTest.Scenario.values()) {
+
+            //create our maze
+            final LargeMaze maze = create(scenario.isHexagon(), scenario.getCols(), scenario.getRows());
+
+            //keep generating until finished
+            while (!maze.isGenerated()) {
+
+                //assume not generated
+                assertFalse(maze.isGenerated());
+
+                DebugHelper.logEvent("Maze generation progress: " + maze.getClass().getSimpleName() + " " + maze.getProgress().getProgress());
+
+                //generate more
+                maze.update(RANDOM);
+            }
+
+            //assume maze is generated, and is a perfect maze
+            assertTrue(maze.isGenerated());
+            assertPerfect(maze.getTopology(), maze.getCols(), maze.getRows(), getWalls(maze));
+        }
+    }
+
+    @Test
+    public void sameSeed() throws Exception {
+
+        PowerMockito.mockStatic(Log.class);
+
+        for (MazeTest.Scenario scenario : MazeTest.Scenario.values()) {
+
+            //create 2 mazes with the same seed
+            final LargeMaze maze1 = create(scenario.isHexagon(), scenario.getCols(), scenario.getRows());
+            final LargeMaze maze2 = create(scenario.isHexagon(), scenario.getCols(), scenario.getRows());
+            maze1.regenerate(new Random(scenario.ordinal()));
+            maze2.regenerate(new Random(scenario.ordinal()));
+
+            //assume every wall is the same
+            for (int row = 0; row < scenario.getRows(); row++) {
+                for (int col = 0; col < scenario.getCols(); col++) {
+                    for (Wall wall : maze1.getTopology().getWalls()) {
+                        assertEquals(maze1.hasWall(col, row, wall), maze2.hasWall(col, row, wall));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Get the walls of the maze
+     * @param maze The maze we are checking
+     * @return The walls read from the maze
+     */
+    private static Walls getWalls(final LargeMaze maze) {
+        return new Walls() {
+            @Override
+            public boolean hasWall(final int col, final int row, final Wall wall) {
+                return maze.hasWall(col, row, wall);
+            }
+        };
+    }
+}
@@ -0,0 +1,22 @@
+package com.gamesbykevin.androidframeworkv2.maze.algorithm;
+
+import android.util.Log;
+
+import com.gamesbykevin.androidframeworkv2.maze.LargeMaze;
+
+import org.junit.runner.RunWith;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+/**
+ * Generation test for {@link LargeSidewinder}
+ */
+@RunWith(PowerMockRunner.class)
+@PrepareForTest({Log.class})
+public class LargeSidewinderTest extends LargeMazeTest {
+
+    @Override
+    protected LargeMaze create(final boolean hexagon, final int cols, final int rows) throws Exception {
+        return new LargeSidewinder(hexagon, cols, rows);
+    }
+}
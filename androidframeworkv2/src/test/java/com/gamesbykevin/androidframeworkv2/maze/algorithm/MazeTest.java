@@ -1,10 +1,16 @@
 package com.gamesbykevin.androidframeworkv2.maze.algorithm;
 
 import com.gamesbykevin.androidframeworkv2.maze.Maze;
+import com.gamesbykevin.androidframeworkv2.maze.Room.Wall;
+import com.gamesbykevin.androidframeworkv2.maze.Topology;
 import com.gamesbykevin.androidframeworkv2.util.DebugHelper;
 
 import java.util.Random;
 
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertTrue;
+
 /**
  * Created by Kevin on 8/6/2017.
  */
@@ -53,4 +59,81 @@ public abstract class MazeTest {
         DebugHelper.DEBUG = true;
         DebugHelper.UNIT_TEST = true;
     }
-}
\ No newline at end of file
+
+    /**
+     * The walls of a maze we are checking
+     */
+    public interface Walls {
+
+        /**
+         * Does the room have the wall?
+         * @param col Column
+         * @param row Row
+         * @param wall The wall we want to check
+         * @return true if the wall exists
+         */
+        public boolean hasWall(int col, int row, Wall wall);
+    }
+
+    /**
+     * Check the maze is perfect, every passage is open from both sides,
+     * there are exactly (size - 1) passages and every room is connected
+     * @param topology The shape of each room
+     * @param cols Total columns
+     * @param rows Total rows
+     * @param walls The walls of the maze
+     */
+    public static void assertPerfect(final Topology topology, final int cols, final int rows, final Walls walls) {
+
+        //the set of each room, used to check every room is connected
+        final int[] parents = new int[cols * rows];
+
+        for (int index = 0; index < parents.length; index++) {
+            parents[index] = index;
+        }
+
+        int passages = 0;
+
+        for (int row = 0; row < rows; row++) {
+            for (int col = 0; col < cols; col++) {
+                for (Wall wall : topology.getWalls()) {
+
+                    if (walls.hasWall(col, row, wall))
+                        continue;
+
+                    final int neighborCol = col + topology.getColOffset(wall, row);
+                    final int neighborRow = row + topology.getRowOffset(wall);
+
+                    //assume the passage stays in the maze, and is open from the other side
+                    assertTrue(neighborCol >= 0 && neighborCol < cols && neighborRow >= 0 && neighborRow < rows);
+                    assertFalse(walls.hasWall(neighborCol, neighborRow, topology.getOpposite(wall)));
+
+                    passages++;
+                    parents[find(parents, (row * cols) + col)] = find(parents, (neighborRow * cols) + neighborCol);
+                }
+            }
+        }
+
+        //each passage is counted from both sides
+        assertEquals((parents.length - 1) * 2, passages);
+
+        //assume every room is in the same set
+        for (int index = 0; index < parents.length; index++) {
+            assertEquals(find(parents, 0), find(parents, index));
+        }
+    }
+
+    /**
+     * Find the set of a room
+     * @param parents The parent of each room
+     * @param index The index of the room
+     * @return The index of the room at the root of the set
+     */
+    private static int find(final int[] parents, int index) {
+        while (parents[index] != index) {
+            index = parents[index];
+        }
+
+        return index;
+    }
+}
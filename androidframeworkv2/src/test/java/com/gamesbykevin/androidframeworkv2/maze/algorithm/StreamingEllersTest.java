@@ -0,0 +1,99 @@
+package com.gamesbykevin.androidframeworkv2.maze.algorithm;
+
+import android.util.Log;
+
+import com.gamesbykevin.androidframeworkv2.maze.Room.Wall;
+import com.gamesbykevin.androidframeworkv2.util.DebugHelper;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.powermock.api.mockito.PowerMockito;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertTrue;
+
+/**
+ * Generation test for {@link StreamingEllers}
+ */
+@RunWith(PowerMockRunner.class)
+@PrepareForTest({Log.class})
+public class StreamingEllersTest extends MazeTest {
+
+    @Test
+    public void generate() throws Exception {
+
+        PowerMockito.mockStatic(Log.class);
+
+        for (MazeTest.Scenario scenario : MazeTest.Scenario.values()) {
+
+            //create our maze
+            final StreamingEllers maze = new StreamingEllers(scenario.isHexagon(), scenario.getCols());
+
+            //the walls of every row we create
+            final byte[][] walls = create(maze, scenario.getRows(), RANDOM);
+
+            //assume maze is generated, and the rows are a perfect maze
+            assertTrue(maze.isClosed());
+            assertPerfect(maze.getTopology(), scenario.getCols(), scenario.getRows(), new Walls() {
+                @Override
+                public boolean hasWall(final int col, final int row, final Wall wall) {
+                    return ((walls[row][col] & wall.getBit()) != 0);
+                }
+            });
+        }
+    }
+
+    @Test
+    public void sameSeed() throws Exception {
+
+        PowerMockito.mockStatic(Log.class);
+
+        for (MazeTest.Scenario scenario : MazeTest.Scenario.values()) {
+
+            //create the rows twice with the same seed
+            final byte[][] walls1 = create(new StreamingEllers(scenario.isHexagon(), scenario.getCols()), scenario.getRows(), new Random(scenario.ordinal()));
+            final byte[][] walls2 = create(new StreamingEllers(scenario.isHexagon(), scenario.getCols()), scenario.getRows(), new Random(scenario.ordinal()));
+
+            //assume every row is the same
+            for (int row = 0; row < scenario.getRows(); row++) {
+                assertTrue(Arrays.equals(walls1[row], walls2[row]));
+            }
+        }
+    }
+
+    /**
+     * Create every row of the maze
+     * @param maze The maze creating the rows
+     * @param rows The total number of rows
+     * @param random Object used to make random decisions
+     * @return The walls of each room in each row
+     * @throws Exception If the rows could not be created
+     */
+    private static byte[][] create(final StreamingEllers maze, final int rows, final Random random) throws Exception {
+
+        final byte[][] walls = new byte[rows][maze.getCols()];
+
+        //keep creating rows until we reach the last row
+        while (maze.getRow() < rows - 1) {
+
+            //assume not closed
+            assertFalse(maze.isClosed());
+
+            DebugHelper.logEvent("Maze generation progress: StreamingEllers row " + maze.getRow());
+
+            //generate more
+            maze.next(random, walls[(int)maze.getRow()]);
+        }
+
+        //create the last row
+        assertEquals(rows - 1, maze.close(random, walls[rows - 1]));
+
+        return walls;
+    }
+}